@@ -1,16 +1,122 @@
 package com.example.cart;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
 
 public class Cart {
-    private Map<Product, Integer> items;
+    private static final int GENERAL_CATEGORY = CategoryDictionary.encode("General");
+
+    // Lines in insertion order, so every view iterates them deterministically without sorting
+    private LineTable items;
+    // Per-cart promotions layered over the shared promotion catalog; allocated on the first write
     private Map<String, Double> activePromotions;
     private double discountPercentage;
+    // Number of lines per SKU (product name), so name lookups do not scan the cart
+    private Map<String, Integer> skuLineCounts = new HashMap<>();
+    private final List<CartListener> listeners = new CopyOnWriteArrayList<>();
+    // Quantities of catalog lines by product id, so id lookups never hash a Product
+    private LongIntMap idQuantities = new LongIntMap();
+    // Live read-only view returned by getItems, so legacy callers do not copy the names on every call
+    private final List<String> itemNames = new ItemNames();
+    private volatile ProductCatalog catalog;
+    // Sorted line views, built on first use and then maintained incrementally; dropped on repricing
+    private LineOrderIndex lineOrder;
+
+    // Guards all cart state; pricing reads try an optimistic stamp before falling back to a read lock
+    private final StampedLock lock = new StampedLock();
+    // Bumped by every successful mutation, used for compare-and-set style updates
+    private long version;
+
+    // Optional catalog prices; resolvedPrices caches the table price (NaN if none) of every SKU in the cart
+    private volatile PriceTable priceTable;
+    private volatile long priceTableVersion;
+    private Map<String, Double> resolvedPrices = new HashMap<>();
+
+    // Optional shared promotions; promotionSnapshot is the catalog version the lines were resolved at
+    private volatile PromotionCatalog promotionCatalog;
+    private volatile PromotionCatalog.Snapshot promotionSnapshot;
+
+    // Currency of the cart's totals; null keeps the legacy unitless pricing. fxFactors caches, for each
+    // foreign product currency in the cart, the factor into the cart currency at fxVersion (NaN if no rate)
+    private volatile Currency currency;
+    private volatile FxRateTable fxRates;
+    private volatile long fxVersion;
+    private Map<Currency, Double> fxFactors = new HashMap<>();
+
+    // Limits checked before any mutation that grows the cart, against counters kept up to date on
+    // every line change: unitCount is the sum of quantities, lineSubtotal the sum of unit price x quantity
+    private volatile CartLimits limits = CartLimits.UNLIMITED;
+    private long unitCount;
+    private double lineSubtotal;
+
+    // Which lines changed at which version, for CartDiff
+    private final ChangeJournal journal = new ChangeJournal(ChangeJournal.DEFAULT_CAPACITY);
+    // Random id shared by a cart and its unmodified copies; versions are only comparable within one lineage.
+    // A copy (decoded, or synced by CartDiff) takes a new lineage on its first own change, because its
+    // versions would otherwise collide with the original's.
+    private long lineage;
+    private boolean copy;
+
+    // Optional stock holds; every quantity change is reported as a delta
+    private ReservationBatcher reservations;
+
+    // Memoized pricing, valid while the cart version and price table version it was computed at still hold
+    private volatile Totals totals;
+
+    // Number of carts sharing the line storage (items, the SKU and id indexes, the price and FX caches
+    // and the promotion overrides) since a fork. Each cart copies it before its first write while shared.
+    private AtomicInteger lineSharers = new AtomicInteger(1);
 
     public Cart() {
-        this.items = new HashMap<>();
-        this.activePromotions = new HashMap<>();
+        this.items = new LineTable();
+        this.activePromotions = Collections.emptyMap();
         this.discountPercentage = 0.0;
+        this.lineage = ThreadLocalRandom.current().nextLong();
+    }
+
+    // Copy of source at its current version; the caller holds source's lock
+    private Cart(Cart source) {
+        source.lineSharers.incrementAndGet();
+        this.lineSharers = source.lineSharers;
+        this.items = source.items;
+        this.skuLineCounts = source.skuLineCounts;
+        this.idQuantities = source.idQuantities;
+        this.resolvedPrices = source.resolvedPrices;
+        this.fxFactors = source.fxFactors;
+        this.activePromotions = source.activePromotions;
+        this.discountPercentage = source.discountPercentage;
+        this.catalog = source.catalog;
+        this.priceTable = source.priceTable;
+        this.priceTableVersion = source.priceTableVersion;
+        this.promotionCatalog = source.promotionCatalog;
+        this.promotionSnapshot = source.promotionSnapshot;
+        this.currency = source.currency;
+        this.fxRates = source.fxRates;
+        this.fxVersion = source.fxVersion;
+        this.limits = source.limits;
+        this.unitCount = source.unitCount;
+        this.lineSubtotal = source.lineSubtotal;
+        this.version = source.version;
+        this.totals = source.totals;
+        this.lineage = ThreadLocalRandom.current().nextLong();
+        journal.reset(version);
+    }
+
+    // Cheap copy for what-if pricing: the fork shares this cart's lines until either cart changes,
+    // and starts with this cart's memoized totals. Listeners and stock reservations are not carried over.
+    public Cart fork() {
+        long stamp = lock.readLock();
+        try {
+            return new Cart(this);
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     // Backward compatibility: add product by name (creates a Product with $0 price)
@@ -19,30 +125,48 @@ public class Cart {
             throw new IllegalArgumentException("Invalid product");
         }
 
-        // Check if product with this name already exists (for backward compatibility)
-        if (containsProduct(productName)) {
-            return false;
-        }
+        long stamp = writeLock();
+        try {
+            // Check if product with this name already exists (for backward compatibility)
+            if (containsProductNamed(productName)) {
+                return false;
+            }
 
-        Product product = new Product(productName, 0.0);
-        return addProduct(product, 1);
+            Product product = new Product(productName, 0.0);
+            putProduct(product, 1);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     // Add product with quantity
     public boolean addProduct(Product product, int quantity) {
-        if (product == null) {
-            throw new IllegalArgumentException("Product cannot be null");
-        }
-        if (quantity <= 0) {
-            throw new IllegalArgumentException("Quantity must be positive");
+        validateAdd(product, quantity);
+
+        long stamp = writeLock();
+        try {
+            putProduct(product, quantity);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
         }
+    }
 
-        if (items.containsKey(product)) {
-            items.put(product, items.get(product) + quantity);
-        } else {
-            items.put(product, quantity);
+    // Add product with quantity only if nobody changed the cart since expectedVersion was read
+    public boolean addProductIfVersion(Product product, int quantity, long expectedVersion) {
+        validateAdd(product, quantity);
+
+        long stamp = writeLock();
+        try {
+            if (version != expectedVersion) {
+                return false;
+            }
+            putProduct(product, quantity);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        return true;
     }
 
     // Add single product
@@ -52,40 +176,51 @@ public class Cart {
 
     // Update quantity of a product
     public boolean updateQuantity(Product product, int quantity) {
-        if (product == null) {
-            throw new IllegalArgumentException("Product cannot be null");
-        }
-        if (quantity < 0) {
-            throw new IllegalArgumentException("Quantity cannot be negative");
-        }
+        validateUpdate(product, quantity);
 
-        if (!items.containsKey(product)) {
-            return false;
+        long stamp = writeLock();
+        try {
+            return setQuantity(product, quantity);
+        } finally {
+            lock.unlockWrite(stamp);
         }
+    }
 
-        if (quantity == 0) {
-            items.remove(product);
-        } else {
-            items.put(product, quantity);
+    // Update quantity only if the cart is still at expectedVersion; false on conflict or missing product
+    public boolean updateQuantityIfVersion(Product product, int quantity, long expectedVersion) {
+        validateUpdate(product, quantity);
+
+        long stamp = writeLock();
+        try {
+            if (version != expectedVersion) {
+                return false;
+            }
+            return setQuantity(product, quantity);
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        return true;
     }
 
     // Backward compatibility: remove product by name
     public boolean removeProduct(String productName) {
-        Product productToRemove = null;
-        for (Product product : items.keySet()) {
-            if (product.getName().equals(productName)) {
-                productToRemove = product;
-                break;
+        long stamp = writeLock();
+        try {
+            if (productName == null || !skuLineCounts.containsKey(productName)) {
+                return false;
             }
-        }
 
-        if (productToRemove != null) {
-            items.remove(productToRemove);
-            return true;
+            for (int i = 0; i < items.slotCount(); i++) {
+                Product product = items.productAt(i);
+                if (product != null && product.getName().equals(productName)) {
+                    removeLine(product);
+                    bumpVersion();
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        return false;
     }
 
     // Remove product completely
@@ -93,91 +228,644 @@ public class Cart {
         if (product == null) {
             return false;
         }
-        return items.remove(product) != null;
+
+        long stamp = writeLock();
+        try {
+            if (!items.containsKey(product)) {
+                return false;
+            }
+            removeLine(product);
+            bumpVersion();
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     // Remove one unit of a product
     public boolean removeProductUnit(Product product) {
-        if (product == null || !items.containsKey(product)) {
+        if (product == null) {
             return false;
         }
 
-        int currentQuantity = items.get(product);
-        if (currentQuantity > 1) {
-            items.put(product, currentQuantity - 1);
-        } else {
-            items.remove(product);
+        long stamp = writeLock();
+        try {
+            int currentQuantity = items.get(product, 0);
+            if (currentQuantity == 0) {
+                return false;
+            }
+
+            if (currentQuantity > 1) {
+                storeQuantity(product, currentQuantity - 1);
+            } else {
+                removeLine(product);
+            }
+            bumpVersion();
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Merge another cart (e.g. a guest basket at login) into this one in a single pass.
+    // Name-only legacy items from addProduct(String) are skipped when this cart already has that name,
+    // promotions and the percentage discount keep the larger value unless the policy prefers the newer cart.
+    public void mergeFrom(Cart other, MergePolicy policy) {
+        if (other == null) {
+            throw new IllegalArgumentException("Cart to merge cannot be null");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Merge policy cannot be null");
+        }
+        if (other == this) {
+            throw new IllegalArgumentException("Cannot merge a cart into itself");
+        }
+
+        // Snapshot the other cart first so both locks are never held at once
+        Map<Product, Integer> incomingItems;
+        Map<String, Double> incomingPromotions;
+        double incomingDiscount;
+        long otherStamp = other.lock.readLock();
+        try {
+            incomingItems = other.items.toMap();
+            incomingPromotions = new HashMap<>(other.activePromotions);
+            incomingDiscount = other.discountPercentage;
+        } finally {
+            other.lock.unlockRead(otherStamp);
+        }
+
+        long stamp = writeLock();
+        try {
+            checkMergeLimits(incomingItems, policy);
+            items.ensureCapacity(items.slotCount() + incomingItems.size());
+
+            for (Map.Entry<Product, Integer> entry : incomingItems.entrySet()) {
+                Product product = entry.getKey();
+                int existing = items.get(product, 0);
+                if (existing != 0) {
+                    storeQuantity(product, mergeQuantity(existing, entry.getValue(), policy));
+                } else if (!isNamePlaceholder(product) || !skuLineCounts.containsKey(product.getName())) {
+                    storeQuantity(product, entry.getValue());
+                    lineAdded(product);
+                }
+            }
+
+            for (Map.Entry<String, Double> promotion : incomingPromotions.entrySet()) {
+                promotionOverrides().merge(promotion.getKey(), promotion.getValue(),
+                    (existing, incoming) -> policy == MergePolicy.PREFER_NEWER ? incoming : Math.max(existing, incoming));
+                resolvePromotion(promotion.getKey());
+            }
+
+            if (policy == MergePolicy.PREFER_NEWER) {
+                if (incomingDiscount > 0) {
+                    discountPercentage = incomingDiscount;
+                }
+            } else {
+                discountPercentage = Math.max(discountPercentage, incomingDiscount);
+            }
+            bumpVersion();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Resolve product ids for the id-keyed methods below
+    public void setCatalog(ProductCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    public ProductCatalog getCatalog() {
+        return catalog;
+    }
+
+    // Add product by catalog id (SKU) with quantity
+    public boolean addProduct(long productId, int quantity) {
+        return addProduct(catalogProduct(productId), quantity);
+    }
+
+    // Update quantity by catalog id; 0 removes the line
+    public boolean updateQuantity(long productId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative");
+        }
+
+        long stamp = writeLock();
+        try {
+            // Lines already in the cart are found by id, so only addProduct needs the catalog
+            Product product = items.productWithId(productId);
+            if (product == null) {
+                return false;
+            }
+            return setQuantity(product, quantity);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Remove product completely by catalog id
+    public boolean removeProduct(long productId) {
+        long stamp = writeLock();
+        try {
+            Product product = items.productWithId(productId);
+            if (product == null) {
+                return false;
+            }
+            removeLine(product);
+            bumpVersion();
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Get quantity by catalog id without touching the catalog or building a Product
+    public int getQuantity(long productId) {
+        long stamp = lock.readLock();
+        try {
+            return idQuantities.get(productId, 0);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Check if cart contains product by catalog id
+    public boolean containsProduct(long productId) {
+        long stamp = lock.readLock();
+        try {
+            return idQuantities.containsKey(productId);
+        } finally {
+            lock.unlockRead(stamp);
         }
-        return true;
     }
 
     // Get quantity of a specific product
     public int getQuantity(Product product) {
-        return items.getOrDefault(product, 0);
+        long stamp = lock.readLock();
+        try {
+            return items.get(product, 0);
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
-    // Backward compatibility: return list of product names
+    // Backward compatibility: product names of the lines, in insertion order.
+    // A read-only view that follows later changes to the cart; size() and contains() are O(1).
     public List<String> getItems() {
-        List<String> productNames = new ArrayList<>();
-        for (Map.Entry<Product, Integer> entry : items.entrySet()) {
-            productNames.add(entry.getKey().getName());
-        }
-        return productNames;
+        return itemNames;
     }
 
     // Get all products with their quantities
     public Map<Product, Integer> getProductsWithQuantities() {
-        return new HashMap<>(items);
+        long stamp = lock.readLock();
+        try {
+            return items.toMap();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Stream every line to the consumer without copying the cart; prices are the effective unit prices
+    public void forEachLine(LineConsumer consumer) {
+        if (consumer == null) {
+            throw new IllegalArgumentException("Consumer cannot be null");
+        }
+        syncPricesIfStale();
+
+        long stamp = lock.readLock();
+        try {
+            for (int i = 0; i < items.slotCount(); i++) {
+                Product product = items.productAt(i);
+                if (product == null) {
+                    continue;
+                }
+                int quantity = items.quantityAt(i);
+                double price = unitPrice(product);
+                consumer.accept(product.getName(), price, product.getCategory(), quantity, price * quantity);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // The n lines with the highest line totals, highest first
+    public List<CartLine> getTopLines(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n cannot be negative");
+        }
+        syncPricesIfStale();
+
+        long stamp = lineOrderLock();
+        try {
+            return lineOrder.top(n);
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    // All lines ordered by line total, highest first
+    public List<CartLine> getLinesByTotal() {
+        syncPricesIfStale();
+
+        long stamp = lineOrderLock();
+        try {
+            return lineOrder.byTotal();
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    // All lines ordered by product name
+    public List<CartLine> getLinesByName() {
+        syncPricesIfStale();
+
+        long stamp = lineOrderLock();
+        try {
+            return lineOrder.byName();
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    // Price the cart and run the given stages (tax, shipping, fees, ...) in a single pass over the lines
+    public Checkout checkout(PricingStage... stages) {
+        if (stages == null) {
+            throw new IllegalArgumentException("Stages cannot be null");
+        }
+        return checkout(Arrays.asList(stages));
+    }
+
+    public Checkout checkout(List<PricingStage> stages) {
+        if (stages == null) {
+            throw new IllegalArgumentException("Stages cannot be null");
+        }
+        PricingStage[] pipeline = stages.toArray(new PricingStage[0]);
+        Set<String> names = new HashSet<>();
+        for (PricingStage stage : pipeline) {
+            if (stage == null || !names.add(stage.getName())) {
+                throw new IllegalArgumentException("Stages must be non-null with unique names");
+            }
+        }
+        syncPricesIfStale();
+
+        double subtotal = 0.0;
+        double discount = 0.0;
+        double[] stageTotals = new double[pipeline.length];
+        PricedLine line = new PricedLine(pipeline.length);
+        long stamp = lock.readLock();
+        try {
+            double discountRate = discountPercentage / 100.0;
+            for (int i = 0; i < items.slotCount(); i++) {
+                Product product = items.productAt(i);
+                if (product == null) {
+                    continue;
+                }
+                int quantity = items.quantityAt(i);
+                double unitPrice = unitPrice(product);
+                double gross = unitPrice * quantity;
+                double lineDiscount = gross * discountRate + items.promotionAt(i) * quantity;
+                subtotal += gross;
+                discount += lineDiscount;
+
+                line.reset(product, quantity, unitPrice, lineDiscount);
+                for (int s = 0; s < pipeline.length; s++) {
+                    double amount = pipeline[s].lineAmount(line);
+                    line.setStageAmount(s, amount);
+                    stageTotals[s] += amount;
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+
+        requireConvertible(subtotal);
+        double merchandiseTotal = Math.max(0, subtotal - discount);
+        double runningTotal = merchandiseTotal;
+        Map<String, Double> stageAmounts = new LinkedHashMap<>();
+        for (int s = 0; s < pipeline.length; s++) {
+            // Only this stage's and earlier stages' line amounts are part of its running total
+            runningTotal += stageTotals[s];
+            double orderAmount = pipeline[s].orderAmount(merchandiseTotal, runningTotal);
+            stageTotals[s] += orderAmount;
+            runningTotal += orderAmount;
+            stageAmounts.put(pipeline[s].getName(), stageTotals[s]);
+        }
+        return new Checkout(subtotal, discount, stageAmounts);
     }
 
     // Get total number of items (sum of all quantities)
     public int getItemCount() {
-        return items.values().stream().mapToInt(Integer::intValue).sum();
+        long stamp = lock.readLock();
+        try {
+            return (int) Math.min(unitCount, Integer.MAX_VALUE);
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     // Get number of unique products
     public int getUniqueProductCount() {
-        return items.size();
+        long stamp = lock.readLock();
+        try {
+            return items.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     // Check if cart is empty
     public boolean isEmpty() {
-        return items.isEmpty();
+        long stamp = lock.readLock();
+        try {
+            return items.isEmpty();
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     // Clear all items from cart
     public void clearCart() {
-        items.clear();
+        long stamp = writeLock();
+        try {
+            for (String sku : skuLineCounts.keySet()) {
+                skuRemoved(sku);
+            }
+            reportAllLines(reservations, -1);
+            for (int i = 0; i < items.slotCount(); i++) {
+                if (items.productAt(i) != null) {
+                    journal.record(version + 1, items.productAt(i));
+                }
+            }
+            items.clear();
+            unitCount = 0;
+            lineSubtotal = 0.0;
+            idQuantities.clear();
+            skuLineCounts.clear();
+            resolvedPrices.clear();
+            lineOrder = null;
+            bumpVersion();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Current modification stamp; increases by at least one with every successful mutation,
+    // so callers can also key their own caches (e.g. rendered fragments) on it
+    public long getVersion() {
+        long stamp = lock.tryOptimisticRead();
+        long current = version;
+        if (lock.validate(stamp)) {
+            return current;
+        }
+
+        stamp = lock.readLock();
+        try {
+            return version;
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     // Calculate subtotal (before discounts)
     public double getSubtotal() {
-        double subtotal = 0.0;
-        for (Map.Entry<Product, Integer> entry : items.entrySet()) {
-            subtotal += entry.getKey().getPrice() * entry.getValue();
-        }
-        return subtotal;
+        return currentTotals().subtotal;
     }
 
     // Calculate discount amount
     public double getDiscountAmount() {
-        double subtotal = getSubtotal();
-        double percentageDiscount = subtotal * (discountPercentage / 100.0);
+        return currentTotals().discount;
+    }
 
-        double promotionDiscount = 0.0;
-        for (Map.Entry<Product, Integer> entry : items.entrySet()) {
-            String productName = entry.getKey().getName();
-            if (activePromotions.containsKey(productName)) {
-                promotionDiscount += activePromotions.get(productName) * entry.getValue();
+    // Calculate total (after discounts)
+    public double getTotal() {
+        return currentTotals().total;
+    }
+
+    // Register a listener for SKUs entering and leaving the cart. It is immediately told about the
+    // SKUs already present, and is called while the cart is locked, so it must not call back into the cart.
+    public void addListener(CartListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+
+        long stamp = writeLock();
+        try {
+            listeners.add(listener);
+            for (String sku : skuLineCounts.keySet()) {
+                listener.skuAdded(this, sku);
             }
+        } finally {
+            lock.unlockWrite(stamp);
         }
+    }
 
-        return percentageDiscount + promotionDiscount;
+    // Unregister a listener; it is told that every SKU still in the cart is gone
+    public boolean removeListener(CartListener listener) {
+        long stamp = writeLock();
+        try {
+            if (!listeners.remove(listener)) {
+                return false;
+            }
+            for (String sku : skuLineCounts.keySet()) {
+                listener.skuRemoved(this, sku);
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
-    // Calculate total (after discounts)
-    public double getTotal() {
-        return Math.max(0, getSubtotal() - getDiscountAmount());
+    // Report stock holds for this cart's lines: current lines are reserved now, and every later
+    // quantity change, removal and clear is recorded as a delta. Replacing or detaching (null)
+    // releases the holds made through the previous batcher.
+    public void setReservations(ReservationBatcher batcher) {
+        long stamp = writeLock();
+        try {
+            if (batcher == reservations) {
+                return;
+            }
+            reportAllLines(reservations, -1);
+            reservations = batcher;
+            reportAllLines(batcher, 1);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Bring this cart up to the state a diff was computed for. Returns false, changing nothing,
+    // unless the diff was computed against this cart (same lineage) at its current version.
+    // Lines are applied as given: limits are not checked against a diff.
+    public boolean apply(CartDiff diff) {
+        if (diff == null) {
+            throw new IllegalArgumentException("Diff cannot be null");
+        }
+
+        long stamp = writeLock();
+        try {
+            if (lineage != diff.getBaseLineage() || version != diff.getFromVersion()) {
+                return false;
+            }
+            if (lineage == diff.getLineage() && version == diff.getToVersion()) {
+                // Diff of a cart against itself
+                return true;
+            }
+            for (Product product : diff.getRemovals()) {
+                if (items.containsKey(product)) {
+                    removeLine(product);
+                }
+            }
+            for (Map.Entry<Product, Integer> upsert : diff.getUpserts().entrySet()) {
+                Product product = upsert.getKey();
+                boolean added = !items.containsKey(product);
+                storeQuantity(product, upsert.getValue());
+                if (added) {
+                    lineAdded(product);
+                }
+            }
+            discountPercentage = diff.getDiscountPercentage();
+            activePromotions = diff.getPromotions().isEmpty()
+                ? Collections.emptyMap() : new HashMap<>(diff.getPromotions());
+            resolveAllPromotions();
+
+            if (diff.getToVersion() > version) {
+                // Now a copy of the diffed cart at its version, so later diffs against it can use its journal
+                version = diff.getToVersion();
+                lineage = diff.getLineage();
+                copy = true;
+                journal.reset(version);
+            } else {
+                // Newer cart from another lineage with a lower version: never move the version backwards
+                bumpVersion();
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private long[] lineageAndVersion() {
+        long stamp = lock.readLock();
+        try {
+            return new long[] {lineage, version};
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Currency the cart's totals are in. Products priced in another currency are converted with the
+    // FX rate table; products without a currency are taken to be in the cart currency. Null detaches.
+    public void setCurrency(Currency currency) {
+        long stamp = writeLock();
+        try {
+            this.currency = currency;
+            resolveAllFxFactors();
+            recomputeLineSubtotal();
+            lineOrder = null;
+            bumpVersion();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    // Exchange rates for foreign-currency lines and getTotal(Currency); rate changes are picked up
+    // on the next price read, and only the conversion factors are recomputed
+    public void setFxRates(FxRateTable rates) {
+        long stamp = writeLock();
+        try {
+            attachFxRates(rates);
+            bumpVersion();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public FxRateTable getFxRates() {
+        return fxRates;
+    }
+
+    // Total converted into another currency; the memoized cart total is converted as a whole
+    public double getTotal(Currency target) {
+        if (target == null) {
+            throw new IllegalArgumentException("Currency cannot be null");
+        }
+        Currency own = currency;
+        if (own == null) {
+            throw new IllegalStateException("Cart has no currency");
+        }
+        double total = getTotal();
+        if (target.equals(own)) {
+            return total;
+        }
+        FxRateTable table = fxRates;
+        if (table == null) {
+            throw new IllegalStateException("No exchange rates attached");
+        }
+        return table.convert(total, own, target);
+    }
+
+    // Price lines from a shared catalog table instead of the price baked into each Product.
+    // Lines whose SKU has no table price keep using Product.getPrice(); pass null to detach.
+    public void setPriceTable(PriceTable table) {
+        long stamp = writeLock();
+        try {
+            attachPriceTable(table);
+            bumpVersion();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public PriceTable getPriceTable() {
+        return priceTable;
+    }
+
+    // Share site-wide promotions from a catalog; promotions added to this cart override the catalog's
+    // for the same product name, and removePromotion/clearPromotions only drop those overrides.
+    // Catalog updates are picked up on the next price read. Pass null to detach.
+    public void setPromotionCatalog(PromotionCatalog catalog) {
+        long stamp = writeLock();
+        try {
+            attachPromotionCatalog(catalog);
+            bumpVersion();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public PromotionCatalog getPromotionCatalog() {
+        return promotionCatalog;
+    }
+
+    // Effective unit price of a product in this cart (catalog price if the table has one), in the
+    // cart currency; NaN if the product's currency cannot be converted
+    public double getUnitPrice(Product product) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        syncPricesIfStale();
+
+        long stamp = lock.readLock();
+        try {
+            return quotePrice(product);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Limits checked before every mutation that grows the cart; UNLIMITED by default.
+    // Lowering limits never removes lines, it only blocks further growth.
+    public void setLimits(CartLimits limits) {
+        if (limits == null) {
+            throw new IllegalArgumentException("Limits cannot be null");
+        }
+        this.limits = limits;
+    }
+
+    public CartLimits getLimits() {
+        return limits;
     }
 
     // Apply percentage discount to entire cart
@@ -185,12 +873,24 @@ public class Cart {
         if (percentage < 0 || percentage > 100) {
             throw new IllegalArgumentException("Discount percentage must be between 0 and 100");
         }
-        this.discountPercentage = percentage;
+
+        long stamp = writeLock();
+        try {
+            this.discountPercentage = percentage;
+            bumpVersion();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     // Get current discount percentage
     public double getDiscountPercentage() {
-        return discountPercentage;
+        long stamp = lock.readLock();
+        try {
+            return discountPercentage;
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     // Add promotion for specific product (fixed amount off)
@@ -201,69 +901,1005 @@ public class Cart {
         if (discountAmount < 0) {
             throw new IllegalArgumentException("Discount amount cannot be negative");
         }
-        activePromotions.put(productName, discountAmount);
+
+        long stamp = writeLock();
+        try {
+            promotionOverrides().put(productName, discountAmount);
+            resolvePromotion(productName);
+            bumpVersion();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     // Remove promotion for specific product
     public void removePromotion(String productName) {
-        activePromotions.remove(productName);
+        long stamp = writeLock();
+        try {
+            if (activePromotions.remove(productName) != null) {
+                resolvePromotion(productName);
+                bumpVersion();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Remove a promotion only while it still has the given amount; used when a scheduled promotion expires
+    boolean removePromotionIfAmount(String productName, double discountAmount) {
+        long stamp = writeLock();
+        try {
+            Double current = activePromotions.get(productName);
+            if (current == null || Double.compare(current, discountAmount) != 0) {
+                return false;
+            }
+            activePromotions.remove(productName);
+            resolvePromotion(productName);
+            bumpVersion();
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     // Clear all promotions
     public void clearPromotions() {
-        activePromotions.clear();
-        discountPercentage = 0.0;
+        long stamp = writeLock();
+        try {
+            activePromotions = Collections.emptyMap();
+            resolveAllPromotions();
+            discountPercentage = 0.0;
+            bumpVersion();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
-    // Get all active promotions
+    // Get all active promotions (catalog promotions merged with this cart's own)
     public Map<String, Double> getActivePromotions() {
-        return new HashMap<>(activePromotions);
+        syncPricesIfStale();
+        long stamp = lock.readLock();
+        try {
+            PromotionCatalog.Snapshot shared = promotionSnapshot;
+            if (shared == null || shared.isEmpty()) {
+                return new HashMap<>(activePromotions);
+            }
+            Map<String, Double> promotions = new HashMap<>(shared.asMap());
+            promotions.putAll(activePromotions);
+            return promotions;
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     // Check if cart contains a product
     public boolean containsProduct(Product product) {
-        return items.containsKey(product);
+        long stamp = lock.readLock();
+        try {
+            return items.containsKey(product);
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     // Check if cart contains product by name
     public boolean containsProduct(String productName) {
-        for (Product product : items.keySet()) {
-            if (product.getName().equals(productName)) {
-                return true;
-            }
+        long stamp = lock.readLock();
+        try {
+            return containsProductNamed(productName);
+        } finally {
+            lock.unlockRead(stamp);
         }
-        return false;
     }
 
     // Get cart summary as string
     public String getCartSummary() {
-        if (isEmpty()) {
-            return "Cart is empty";
+        syncPricesIfStale();
+        long stamp = lock.readLock();
+        try {
+            if (items.isEmpty()) {
+                return "Cart is empty";
+            }
+
+            StringBuilder summary = new StringBuilder();
+            summary.append("Cart Summary:\n");
+            summary.append("=".repeat(50)).append("\n");
+
+            for (int i = 0; i < items.slotCount(); i++) {
+                Product product = items.productAt(i);
+                if (product == null) {
+                    continue;
+                }
+                int quantity = items.quantityAt(i);
+                double itemTotal = unitPrice(product) * quantity;
+                summary.append(String.format("%s x%d = $%.2f\n",
+                    product.getName(), quantity, itemTotal));
+            }
+
+            Totals current = computeTotals();
+            double subtotal = current.subtotal;
+            double discount = current.discount;
+
+            summary.append("=".repeat(50)).append("\n");
+            summary.append(String.format("Subtotal: $%.2f\n", subtotal));
+
+            if (discount > 0) {
+                summary.append(String.format("Discount: -$%.2f\n", discount));
+            }
+
+            summary.append(String.format("Total: $%.2f\n", Math.max(0, subtotal - discount)));
+            summary.append(String.format("Total Items: %d", unitCount));
+
+            return summary.toString();
+        } finally {
+            lock.unlockRead(stamp);
         }
+    }
 
-        StringBuilder summary = new StringBuilder();
-        summary.append("Cart Summary:\n");
-        summary.append("=".repeat(50)).append("\n");
+    // Serialize a consistent snapshot of the cart (see CartCodec for the wire format)
+    void writeTo(DataOutput out) throws IOException {
+        long stamp = lock.readLock();
+        try {
+            out.writeLong(version);
+            out.writeLong(lineage);
+            out.writeDouble(discountPercentage);
+            out.writeUTF(currency == null ? "" : currency.getCurrencyCode());
+            writeLimits(out, limits);
 
-        for (Map.Entry<Product, Integer> entry : items.entrySet()) {
+            out.writeInt(activePromotions.size());
+            for (Map.Entry<String, Double> promotion : activePromotions.entrySet()) {
+                out.writeUTF(promotion.getKey());
+                out.writeDouble(promotion.getValue());
+            }
+
+            out.writeInt(items.size());
+            for (int i = 0; i < items.slotCount(); i++) {
+                Product product = items.productAt(i);
+                if (product == null) {
+                    continue;
+                }
+                writeProduct(out, product);
+                out.writeInt(items.quantityAt(i));
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Rebuild a cart written by writeTo, keeping its version so compare-and-set callers survive a migration
+    static Cart readFrom(DataInput in) throws IOException {
+        Cart cart = new Cart();
+        cart.version = in.readLong();
+        cart.lineage = in.readLong();
+        cart.discountPercentage = in.readDouble();
+        cart.currency = readCurrency(in);
+        cart.limits = readLimits(in);
+
+        int promotionCount = in.readInt();
+        for (int i = 0; i < promotionCount; i++) {
+            cart.promotionOverrides().put(in.readUTF(), in.readDouble());
+        }
+
+        int lineCount = in.readInt();
+        for (int i = 0; i < lineCount; i++) {
+            Product product = readProduct(in);
+            cart.storeQuantity(product, in.readInt());
+            cart.skuLineCounts.merge(product.getName(), 1, Integer::sum);
+        }
+        // Nothing before the decoded version can be diffed against
+        cart.journal.reset(cart.version);
+        cart.copy = true;
+        return cart;
+    }
+
+    // Limits travel with the cart so moving it to another node cannot lift them
+    private static void writeLimits(DataOutput out, CartLimits limits) throws IOException {
+        out.writeBoolean(limits != CartLimits.UNLIMITED);
+        if (limits != CartLimits.UNLIMITED) {
+            out.writeInt(limits.getMaxLineQuantity());
+            out.writeInt(limits.getMaxLines());
+            out.writeLong(limits.getMaxUnits());
+            out.writeDouble(limits.getMaxSubtotal());
+        }
+    }
+
+    private static CartLimits readLimits(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return CartLimits.UNLIMITED;
+        }
+        try {
+            return new CartLimits(in.readInt(), in.readInt(), in.readLong(), in.readDouble());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid cart limits", e);
+        }
+    }
+
+    static void writeProduct(DataOutput out, Product product) throws IOException {
+        out.writeLong(product.getId());
+        out.writeUTF(product.getName());
+        out.writeDouble(product.getPrice());
+        out.writeBoolean(product.getCategory() != null);
+        if (product.getCategory() != null) {
+            out.writeUTF(product.getCategory());
+        }
+        out.writeUTF(product.getCurrency() == null ? "" : product.getCurrency().getCurrencyCode());
+    }
+
+    static Product readProduct(DataInput in) throws IOException {
+        long id = in.readLong();
+        String name = in.readUTF();
+        double price = in.readDouble();
+        String category = in.readBoolean() ? in.readUTF() : null;
+        return new Product(id, name, price, category, readCurrency(in));
+    }
+
+    // Diff from an older copy of this cart to its current state; see CartDiff.between
+    CartDiff diffFrom(Cart older) {
+        long[] base = older.lineageAndVersion();
+        long baseLineage = base[0];
+        long since = base[1];
+        long stamp = lock.readLock();
+        try {
+            List<Product> changed = new ArrayList<>();
+            if (baseLineage == lineage && since <= version && journal.changedSince(since, changed)) {
+                Map<Product, Integer> upserts = new LinkedHashMap<>();
+                List<Product> removals = new ArrayList<>();
+                Set<Product> seen = new HashSet<>();
+                for (Product product : changed) {
+                    if (!seen.add(product)) {
+                        continue;
+                    }
+                    int quantity = items.get(product, 0);
+                    if (quantity > 0) {
+                        upserts.put(product, quantity);
+                    } else {
+                        removals.add(product);
+                    }
+                }
+                return new CartDiff(lineage, baseLineage, since, version, discountPercentage,
+                    new HashMap<>(activePromotions), upserts, removals);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+
+        // Unrelated or locally changed cart, or journal too short: compare all lines
+        Map<Product, Integer> olderLines;
+        stamp = older.lock.readLock();
+        try {
+            baseLineage = older.lineage;
+            since = older.version;
+            olderLines = older.items.toMap();
+        } finally {
+            older.lock.unlockRead(stamp);
+        }
+        stamp = lock.readLock();
+        try {
+            Map<Product, Integer> upserts = new LinkedHashMap<>();
+            for (int i = 0; i < items.slotCount(); i++) {
+                Product product = items.productAt(i);
+                if (product != null && olderLines.getOrDefault(product, 0) != items.quantityAt(i)) {
+                    upserts.put(product, items.quantityAt(i));
+                }
+            }
+            List<Product> removals = new ArrayList<>();
+            for (Product product : olderLines.keySet()) {
+                if (!items.containsKey(product)) {
+                    removals.add(product);
+                }
+            }
+            return new CartDiff(lineage, baseLineage, since, version, discountPercentage,
+                new HashMap<>(activePromotions), upserts, removals);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static Currency readCurrency(DataInput in) throws IOException {
+        String code = in.readUTF();
+        return code.isEmpty() ? null : Currency.getInstance(code);
+    }
+
+    // The helpers below assume the caller already holds the lock (or an optimistic stamp)
+
+    // Every successful mutation ends here
+    private void bumpVersion() {
+        if (copy) {
+            // A copy's own change would reuse version numbers the original hands out for other changes
+            copy = false;
+            lineage = ThreadLocalRandom.current().nextLong();
+            journal.reset(version);
+        }
+        version++;
+    }
+
+    // Node-level pricing for a cart a CartStore just created or decoded. Unlike the public setters this
+    // keeps the version, so compare-and-set callers are not broken by a migration; null arguments are skipped.
+    void attachNodePricing(PriceTable table, PromotionCatalog catalog, FxRateTable rates) {
+        long stamp = writeLock();
+        try {
+            if (table != null) {
+                attachPriceTable(table);
+            }
+            if (catalog != null) {
+                attachPromotionCatalog(catalog);
+            }
+            if (rates != null) {
+                attachFxRates(rates);
+            }
+            totals = null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void attachPriceTable(PriceTable table) {
+        priceTable = table;
+        resolvedPrices.clear();
+        lineOrder = null;
+        if (table != null) {
+            priceTableVersion = table.getVersion();
+            for (int i = 0; i < items.slotCount(); i++) {
+                Product product = items.productAt(i);
+                if (product != null) {
+                    resolvePriceIfAbsent(product.getName());
+                }
+            }
+        }
+        recomputeLineSubtotal();
+    }
+
+    private void attachFxRates(FxRateTable rates) {
+        fxRates = rates;
+        fxVersion = rates == null ? 0 : rates.getVersion();
+        resolveAllFxFactors();
+        recomputeLineSubtotal();
+        lineOrder = null;
+    }
+
+    private void attachPromotionCatalog(PromotionCatalog catalog) {
+        promotionCatalog = catalog;
+        promotionSnapshot = catalog == null ? null : catalog.snapshot();
+        resolveAllPromotions();
+    }
+
+    // Write lock with the line storage owned by this cart, copied first if a fork still shares it
+    private long writeLock() {
+        long stamp = lock.writeLock();
+        if (lineSharers.get() > 1) {
+            items = new LineTable(items);
+            skuLineCounts = new HashMap<>(skuLineCounts);
+            idQuantities = new LongIntMap(idQuantities);
+            resolvedPrices = new HashMap<>(resolvedPrices);
+            fxFactors = new HashMap<>(fxFactors);
+            if (activePromotions instanceof HashMap) {
+                activePromotions = new HashMap<>(activePromotions);
+            }
+            lineSharers.decrementAndGet();
+            lineSharers = new AtomicInteger(1);
+        }
+        return stamp;
+    }
+
+    // Read lock with the line order index present; upgrades to the write lock once to build it
+    private long lineOrderLock() {
+        long stamp = lock.readLock();
+        if (lineOrder != null) {
+            return stamp;
+        }
+
+        long writeStamp = lock.tryConvertToWriteLock(stamp);
+        if (writeStamp == 0L) {
+            lock.unlockRead(stamp);
+            writeStamp = lock.writeLock();
+        }
+        try {
+            if (lineOrder == null) {
+                LineOrderIndex index = new LineOrderIndex();
+                for (int i = 0; i < items.slotCount(); i++) {
+                    Product product = items.productAt(i);
+                    if (product != null) {
+                        index.update(product, items.quantityAt(i), unitPrice(product));
+                    }
+                }
+                lineOrder = index;
+            }
+        } catch (RuntimeException e) {
+            lock.unlockWrite(writeStamp);
+            throw e;
+        }
+        return writeStamp;
+    }
+
+    private Product catalogProduct(long productId) {
+        ProductCatalog current = catalog;
+        if (current == null) {
+            throw new IllegalStateException("No product catalog attached");
+        }
+        Product product = current.get(productId);
+        if (product == null) {
+            throw new IllegalArgumentException("Unknown product id: " + productId);
+        }
+        return product;
+    }
+
+    private void validateAdd(Product product, int quantity) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+    }
+
+    private void validateUpdate(Product product, int quantity) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative");
+        }
+    }
+
+    private void putProduct(Product product, int quantity) {
+        int existing = items.get(product, 0);
+        int updated = addQuantities(existing, quantity);
+        checkLimits(product, existing, updated);
+        storeQuantity(product, updated);
+        if (existing == 0) {
+            lineAdded(product);
+        }
+        bumpVersion();
+    }
+
+    private void storeQuantity(Product product, int quantity) {
+        product = lineProduct(product);
+        int previous = items.get(product, 0);
+        // Mutations bump the version after changing lines, so the change belongs to the next version
+        journal.record(version + 1, product);
+        if (reservations != null) {
+            reservations.record(product, quantity - previous);
+        }
+        unitCount += quantity - previous;
+        if (items.put(product, quantity)) {
+            if (hasPromotions()) {
+                items.setPromotion(product, effectivePromotion(product.getName()));
+            }
+            if (product.getCurrency() != null) {
+                resolveFxFactor(product.getCurrency());
+            }
+        }
+        if (product.hasId()) {
+            idQuantities.put(product.getId(), quantity);
+        }
+        if (priceTable != null) {
+            resolvePriceIfAbsent(product.getName());
+        }
+        double price = unitPrice(product);
+        lineSubtotal += price * (quantity - previous);
+        if (lineOrder != null) {
+            lineOrder.update(product, quantity, price);
+        }
+    }
+
+    // Products with an id are equal by id alone, so a line may be stored under a product with another
+    // name or price than the argument; bookkeeping must always use the stored one
+    private Product lineProduct(Product product) {
+        Product stored = items.storedProduct(product);
+        return stored != null ? stored : product;
+    }
+
+    // Bookkeeping for a line that was just put into items
+    private void lineAdded(Product product) {
+        String sku = product.getName();
+        if (skuLineCounts.merge(sku, 1, Integer::sum) == 1) {
+            for (CartListener listener : listeners) {
+                listener.skuAdded(this, sku);
+            }
+        }
+    }
+
+    private void removeLine(Product product) {
+        product = lineProduct(product);
+        int previous = items.get(product, 0);
+        journal.record(version + 1, product);
+        if (reservations != null) {
+            reservations.record(product, -previous);
+        }
+        unitCount -= previous;
+        lineSubtotal -= unitPrice(product) * previous;
+        items.remove(product);
+        if (items.isEmpty()) {
+            // Drop accumulated rounding error
+            lineSubtotal = 0.0;
+        }
+        if (lineOrder != null) {
+            lineOrder.remove(product);
+        }
+        if (product.hasId()) {
+            idQuantities.remove(product.getId());
+        }
+        String sku = product.getName();
+        if (skuLineCounts.merge(sku, -1, Integer::sum) == 0) {
+            skuLineCounts.remove(sku);
+            skuRemoved(sku);
+        }
+    }
+
+    private void skuRemoved(String sku) {
+        for (CartListener listener : listeners) {
+            listener.skuRemoved(this, sku);
+        }
+    }
+
+    // Copy the current promotion of a name (0 if none) onto every line with that name
+    private void resolvePromotion(String productName) {
+        if (!skuLineCounts.containsKey(productName)) {
+            return;
+        }
+        double discountPerUnit = effectivePromotion(productName);
+        for (int i = 0; i < items.slotCount(); i++) {
+            Product product = items.productAt(i);
+            if (product != null && product.getName().equals(productName)) {
+                items.setPromotionAt(i, discountPerUnit);
+            }
+        }
+    }
+
+    private void resolveAllPromotions() {
+        for (int i = 0; i < items.slotCount(); i++) {
+            Product product = items.productAt(i);
+            if (product != null) {
+                items.setPromotionAt(i, effectivePromotion(product.getName()));
+            }
+        }
+    }
+
+    // Per-cart promotion if there is one, else the catalog's, else 0
+    private double effectivePromotion(String productName) {
+        Double override = activePromotions.get(productName);
+        if (override != null) {
+            return override;
+        }
+        PromotionCatalog.Snapshot shared = promotionSnapshot;
+        return shared == null ? 0.0 : shared.getDiscount(productName);
+    }
+
+    private boolean hasPromotions() {
+        PromotionCatalog.Snapshot shared = promotionSnapshot;
+        return !activePromotions.isEmpty() || (shared != null && !shared.isEmpty());
+    }
+
+    // Copy-on-write: carts share the empty map until they get their own promotion
+    private Map<String, Double> promotionOverrides() {
+        if (!(activePromotions instanceof HashMap)) {
+            activePromotions = new HashMap<>();
+        }
+        return activePromotions;
+    }
+
+    // Re-resolve only the cart's SKUs whose catalog discount differs between the two snapshots
+    private void syncPromotions(PromotionCatalog.Snapshot latest) {
+        PromotionCatalog.Snapshot previous = promotionSnapshot;
+        promotionSnapshot = latest;
+        for (String sku : skuLineCounts.keySet()) {
+            if (activePromotions.containsKey(sku)) {
+                continue;
+            }
+            double before = previous == null ? 0.0 : previous.getDiscount(sku);
+            if (Double.compare(before, latest.getDiscount(sku)) != 0) {
+                resolvePromotion(sku);
+            }
+        }
+    }
+
+    private void resolvePriceIfAbsent(String sku) {
+        if (!resolvedPrices.containsKey(sku)) {
+            resolvedPrices.put(sku, priceTable.getPrice(sku));
+        }
+    }
+
+    // Cheap check on the read path; only takes the write lock when the price table moved on
+    private void syncPricesIfStale() {
+        PriceTable table = priceTable;
+        boolean pricesStale = table != null && table.getVersion() != priceTableVersion;
+        PromotionCatalog promotions = promotionCatalog;
+        boolean promotionsStale = promotions != null && promotions.snapshot() != promotionSnapshot;
+        FxRateTable fx = fxRates;
+        boolean fxStale = fx != null && fx.getVersion() != fxVersion;
+        if (!pricesStale && !promotionsStale && !fxStale) {
+            return;
+        }
+
+        long stamp = writeLock();
+        try {
+            if (pricesStale && priceTable == table) {
+                syncPrices(table);
+            }
+            if (promotionsStale && promotionCatalog == promotions) {
+                syncPromotions(promotions.snapshot());
+            }
+            if (fxStale && fxRates == fx) {
+                fxVersion = fx.getVersion();
+                resolveAllFxFactors();
+                recomputeLineSubtotal();
+                lineOrder = null;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Reprice only the SKUs changed since the last sync, or everything if the change log ran out
+    private void syncPrices(PriceTable table) {
+        List<String> changed = new ArrayList<>();
+        long reached = table.changesSince(priceTableVersion, changed);
+        if (reached < 0) {
+            reached = table.getVersion();
+            for (String sku : resolvedPrices.keySet()) {
+                resolvedPrices.put(sku, table.getPrice(sku));
+            }
+            lineOrder = null;
+        } else {
+            for (String sku : changed) {
+                if (resolvedPrices.containsKey(sku)) {
+                    resolvedPrices.put(sku, table.getPrice(sku));
+                    lineOrder = null;
+                }
+            }
+        }
+        priceTableVersion = reached;
+        recomputeLineSubtotal();
+    }
+
+    // Effective price in the cart currency; NaN for a foreign-currency line without an exchange rate
+    private double unitPrice(Product product) {
+        double price = product.getPrice();
+        if (priceTable != null) {
+            Double resolved = resolvedPrices.get(product.getName());
+            if (resolved != null && !resolved.isNaN()) {
+                price = resolved;
+            }
+        }
+
+        Currency productCurrency = product.getCurrency();
+        if (productCurrency == null || currency == null || productCurrency.equals(currency)) {
+            return price;
+        }
+        Double factor = fxFactors.get(productCurrency);
+        return factor == null ? Double.NaN : price * factor;
+    }
+
+    // Like unitPrice, but also for products that are not in the cart yet
+    private double quotePrice(Product product) {
+        double price = product.getPrice();
+        PriceTable table = priceTable;
+        if (table != null) {
+            Double resolved = resolvedPrices.get(product.getName());
+            double tablePrice = resolved != null ? resolved : table.getPrice(product.getName());
+            if (!Double.isNaN(tablePrice)) {
+                price = tablePrice;
+            }
+        }
+
+        // Products outside the cart may use a currency with no cached factor yet
+        Currency productCurrency = product.getCurrency();
+        if (productCurrency == null || currency == null || productCurrency.equals(currency)) {
+            return price;
+        }
+        Double factor = fxFactors.get(productCurrency);
+        FxRateTable rates = fxRates;
+        if (factor == null && rates != null) {
+            factor = rates.factor(productCurrency, currency);
+        }
+        return factor == null ? Double.NaN : price * factor;
+    }
+
+    // Rebuild lineSubtotal after unit prices changed (price table, currency or exchange rates)
+    private void recomputeLineSubtotal() {
+        double subtotal = 0.0;
+        for (int i = 0; i < items.slotCount(); i++) {
+            Product product = items.productAt(i);
+            if (product != null) {
+                subtotal += unitPrice(product) * items.quantityAt(i);
+            }
+        }
+        lineSubtotal = subtotal;
+    }
+
+    private void resolveFxFactor(Currency productCurrency) {
+        Currency cartCurrency = currency;
+        if (cartCurrency == null || productCurrency.equals(cartCurrency) || fxFactors.containsKey(productCurrency)) {
+            return;
+        }
+        FxRateTable table = fxRates;
+        fxFactors.put(productCurrency, table == null ? Double.NaN : table.factor(productCurrency, cartCurrency));
+    }
+
+    private void reportAllLines(ReservationBatcher batcher, int sign) {
+        if (batcher == null) {
+            return;
+        }
+        for (int i = 0; i < items.slotCount(); i++) {
+            Product product = items.productAt(i);
+            if (product != null) {
+                batcher.record(product, sign * items.quantityAt(i));
+            }
+        }
+    }
+
+    private void resolveAllFxFactors() {
+        fxFactors.clear();
+        for (int i = 0; i < items.slotCount(); i++) {
+            Product product = items.productAt(i);
+            if (product != null && product.getCurrency() != null) {
+                resolveFxFactor(product.getCurrency());
+            }
+        }
+    }
+
+    private void requireConvertible(double amount) {
+        if (Double.isNaN(amount)) {
+            throw new IllegalStateException("Missing exchange rate into " + currency + " for a cart line");
+        }
+    }
+
+    private boolean setQuantity(Product product, int quantity) {
+        int existing = items.get(product, 0);
+        if (existing == 0) {
+            return false;
+        }
+        checkLimits(product, existing, quantity);
+
+        if (quantity == 0) {
+            removeLine(product);
+        } else {
+            storeQuantity(product, quantity);
+        }
+        bumpVersion();
+        return true;
+    }
+
+    private static int mergeQuantity(int existing, int incoming, MergePolicy policy) {
+        switch (policy) {
+            case SUM:
+                return addQuantities(existing, incoming);
+            case MAX:
+                return Math.max(existing, incoming);
+            default:
+                return incoming;
+        }
+    }
+
+    private static int addQuantities(int existing, int added) {
+        try {
+            return Math.addExact(existing, added);
+        } catch (ArithmeticException overflow) {
+            throw new CartLimitExceededException("Quantity overflow");
+        }
+    }
+
+    // Reject a line change that would grow the cart past its limits, in O(1) from the counters
+    private void checkLimits(Product product, int existing, int updated) {
+        if (updated <= existing) {
+            return;
+        }
+        checkLineQuantity(updated);
+        checkTotals(items.size() + (existing == 0 ? 1 : 0), unitCount + updated - existing,
+            lineSubtotal + quotePrice(lineProduct(product)) * (updated - existing));
+    }
+
+    // Check a whole merge up front so a rejected merge leaves the cart untouched
+    private void checkMergeLimits(Map<Product, Integer> incomingItems, MergePolicy policy) {
+        int lines = items.size();
+        long units = unitCount;
+        double subtotal = lineSubtotal;
+        for (Map.Entry<Product, Integer> entry : incomingItems.entrySet()) {
             Product product = entry.getKey();
-            int quantity = entry.getValue();
-            double itemTotal = product.getPrice() * quantity;
-            summary.append(String.format("%s x%d = $%.2f\n",
-                product.getName(), quantity, itemTotal));
+            int existing = items.get(product, 0);
+            int merged;
+            if (existing != 0) {
+                merged = mergeQuantity(existing, entry.getValue(), policy);
+            } else if (!isNamePlaceholder(product) || !skuLineCounts.containsKey(product.getName())) {
+                merged = entry.getValue();
+                lines++;
+            } else {
+                continue;
+            }
+            if (merged > existing) {
+                checkLineQuantity(merged);
+            }
+            units += merged - existing;
+            subtotal += quotePrice(lineProduct(product)) * (merged - existing);
         }
+        checkTotals(lines, units, subtotal);
+    }
 
-        summary.append("=".repeat(50)).append("\n");
-        summary.append(String.format("Subtotal: $%.2f\n", getSubtotal()));
+    private void checkLineQuantity(int quantity) {
+        int max = limits.getMaxLineQuantity();
+        if (quantity > max) {
+            throw new CartLimitExceededException("Line quantity cannot exceed " + max);
+        }
+    }
 
-        if (getDiscountAmount() > 0) {
-            summary.append(String.format("Discount: -$%.2f\n", getDiscountAmount()));
+    // Only totals that grow are checked, so a cart already over a lowered limit can still shrink
+    private void checkTotals(int lines, long units, double subtotal) {
+        CartLimits current = limits;
+        if (lines > items.size() && lines > current.getMaxLines()) {
+            throw new CartLimitExceededException("Cart cannot hold more than " + current.getMaxLines() + " lines");
+        }
+        if (units > unitCount && units > current.getMaxUnits()) {
+            throw new CartLimitExceededException("Cart cannot hold more than " + current.getMaxUnits() + " units");
+        }
+        if (subtotal > lineSubtotal && subtotal > current.getMaxSubtotal()) {
+            throw new CartLimitExceededException("Cart subtotal cannot exceed " + current.getMaxSubtotal());
         }
+    }
 
-        summary.append(String.format("Total: $%.2f\n", getTotal()));
-        summary.append(String.format("Total Items: %d", getItemCount()));
+    // Products created by addProduct(String) only carry a name
+    private static boolean isNamePlaceholder(Product product) {
+        return product.getPrice() == 0.0 && product.getCategoryCode() == GENERAL_CATEGORY;
+    }
 
-        return summary.toString();
+    private boolean containsProductNamed(String productName) {
+        return productName != null && skuLineCounts.containsKey(productName);
     }
-}
 
+    // Subtotal and discounts in a single pass over the lines
+    private Totals computeTotals() {
+        double subtotal = 0.0;
+        double promotionDiscount = 0.0;
+        for (int i = 0; i < items.slotCount(); i++) {
+            Product product = items.productAt(i);
+            if (product == null) {
+                continue;
+            }
+            int quantity = items.quantityAt(i);
+            subtotal += unitPrice(product) * quantity;
+            promotionDiscount += items.promotionAt(i) * quantity;
+        }
+
+        double discount = subtotal * (discountPercentage / 100.0) + promotionDiscount;
+        requireConvertible(subtotal);
+        return new Totals(version, priceTableVersion, promotionSnapshot, fxVersion,
+            subtotal, discount, Math.max(0, subtotal - discount));
+    }
+
+    // Returns the memoized totals when nothing changed since they were computed; otherwise recomputes
+    // without blocking writers and retries under the read lock if a writer slipped in
+    // (a torn read may also surface as an exception from the maps)
+    private Totals currentTotals() {
+        syncPricesIfStale();
+
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            Totals cached = totals;
+            if (cached != null && cached.isCurrent(version, priceTableVersion, promotionSnapshot, fxVersion) && lock.validate(stamp)) {
+                return cached;
+            }
+            try {
+                Totals computed = computeTotals();
+                if (lock.validate(stamp)) {
+                    totals = computed;
+                    return computed;
+                }
+            } catch (RuntimeException concurrentModification) {
+                // fall through to the read lock
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            Totals cached = totals;
+            if (cached != null && cached.isCurrent(version, priceTableVersion, promotionSnapshot, fxVersion)) {
+                return cached;
+            }
+            Totals computed = computeTotals();
+            totals = computed;
+            return computed;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Line names read straight from the line table under the cart's read lock. get(i) walks the
+    // slots, so callers that index are better served by the iterators, which walk a snapshot of the
+    // names taken when iteration starts: the cart may change (even lose lines) while iterating.
+    private final class ItemNames extends AbstractList<String> {
+        @Override
+        public int size() {
+            long stamp = lock.readLock();
+            try {
+                return items.size();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        public boolean contains(Object name) {
+            if (!(name instanceof String)) {
+                return false;
+            }
+            long stamp = lock.readLock();
+            try {
+                return skuLineCounts.containsKey(name);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        public String get(int index) {
+            long stamp = lock.readLock();
+            try {
+                if (index >= 0 && index < items.size()) {
+                    for (int i = 0, seen = 0; i < items.slotCount(); i++) {
+                        Product product = items.productAt(i);
+                        if (product != null && seen++ == index) {
+                            return product.getName();
+                        }
+                    }
+                }
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + items.size());
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return snapshot().iterator();
+        }
+
+        @Override
+        public ListIterator<String> listIterator(int index) {
+            return snapshot().listIterator(index);
+        }
+
+        // AbstractList's iterators would call get(i) per element; iterate a copy taken under
+        // one read lock instead
+        private List<String> snapshot() {
+            long stamp = lock.readLock();
+            try {
+                List<String> names = new ArrayList<>(items.size());
+                for (int i = 0; i < items.slotCount(); i++) {
+                    Product product = items.productAt(i);
+                    if (product != null) {
+                        names.add(product.getName());
+                    }
+                }
+                return Collections.unmodifiableList(names);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    private static final class Totals {
+        private final long version;
+        private final long priceTableVersion;
+        private final PromotionCatalog.Snapshot promotions;
+        private final long fxVersion;
+        private final double subtotal;
+        private final double discount;
+        private final double total;
+
+        private Totals(long version, long priceTableVersion, PromotionCatalog.Snapshot promotions, long fxVersion,
+                       double subtotal, double discount, double total) {
+            this.version = version;
+            this.priceTableVersion = priceTableVersion;
+            this.promotions = promotions;
+            this.fxVersion = fxVersion;
+            this.subtotal = subtotal;
+            this.discount = discount;
+            this.total = total;
+        }
+
+        private boolean isCurrent(long cartVersion, long currentPriceTableVersion,
+                                  PromotionCatalog.Snapshot currentPromotions, long currentFxVersion) {
+            return version == cartVersion && priceTableVersion == currentPriceTableVersion
+                && promotions == currentPromotions && fxVersion == currentFxVersion;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.cart;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Partitions carts across CartStore nodes by consistent hashing of the session id.
+// Each node owns many virtual points on the ring so load stays even, and a node joining
+// or leaving only moves the sessions whose owner actually changed (as serialized carts).
+// A migrated session gets a new Cart instance on its new node: Cart references fetched
+// before a rebalance are stale afterwards (writes to them are lost), so callers must
+// re-fetch carts with getCart rather than hold on to them across membership changes.
+public class CartCluster {
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private final int virtualNodesPerNode;
+    private final Map<String, CartStore> nodes;
+    // Replaced wholesale on membership changes so lookups never see a half-built ring
+    private volatile NavigableMap<Long, CartStore> ring;
+    // Session lookups share it; a rebalance holds it exclusively until its carts have moved,
+    // so no lookup can create an empty cart that the migration would then overwrite or orphan
+    private final ReadWriteLock rebalanceLock = new ReentrantReadWriteLock();
+
+    // Pricing shared by every node, so a session is priced the same whichever node holds it
+    private PriceTable priceTable;
+    private PromotionCatalog promotionCatalog;
+    private FxRateTable fxRates;
+    private ProductCatalog catalog;
+    private ReservationBatcher reservations;
+
+    public CartCluster() {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+
+    public CartCluster(int virtualNodesPerNode) {
+        if (virtualNodesPerNode <= 0) {
+            throw new IllegalArgumentException("Virtual node count must be positive");
+        }
+        this.virtualNodesPerNode = virtualNodesPerNode;
+        this.nodes = new LinkedHashMap<>();
+        this.ring = new TreeMap<>();
+    }
+
+    // Add a node and migrate to it the sessions it now owns; returns the number of carts moved
+    public synchronized int addNode(String nodeId) {
+        if (nodeId == null || nodeId.isEmpty()) {
+            throw new IllegalArgumentException("Node id cannot be null or empty");
+        }
+        if (nodes.containsKey(nodeId)) {
+            throw new IllegalArgumentException("Node already exists: " + nodeId);
+        }
+
+        CartStore store = new CartStore(nodeId);
+        store.setPriceTable(priceTable);
+        store.setPromotionCatalog(promotionCatalog);
+        store.setFxRates(fxRates);
+        store.setCatalog(catalog);
+        store.setReservations(reservations);
+        NavigableMap<Long, CartStore> newRing = new TreeMap<>(ring);
+        for (int i = 0; i < virtualNodesPerNode; i++) {
+            newRing.put(hash(nodeId + "#" + i), store);
+        }
+
+        rebalanceLock.writeLock().lock();
+        try {
+            // Move the carts first and publish the ring last, so a session always routes
+            // to the node that holds it
+            int moved = 0;
+            for (CartStore source : nodes.values()) {
+                for (String sessionId : source.getSessionIds()) {
+                    if (ownerOf(newRing, sessionId) == store) {
+                        migrate(sessionId, source, store);
+                        moved++;
+                    }
+                }
+            }
+            nodes.put(nodeId, store);
+            ring = newRing;
+            return moved;
+        } finally {
+            rebalanceLock.writeLock().unlock();
+        }
+    }
+
+    // Remove a node and hand each of its carts to the new owner; returns the number of carts moved
+    public synchronized int removeNode(String nodeId) {
+        CartStore store = nodes.get(nodeId);
+        if (store == null) {
+            return 0;
+        }
+        if (nodes.size() == 1 && store.size() > 0) {
+            throw new IllegalStateException("Cannot remove the last node while it still holds carts");
+        }
+
+        NavigableMap<Long, CartStore> newRing = new TreeMap<>(ring);
+        newRing.values().removeIf(owner -> owner == store);
+
+        rebalanceLock.writeLock().lock();
+        try {
+            int moved = 0;
+            for (String sessionId : store.getSessionIds()) {
+                migrate(sessionId, store, ownerOf(newRing, sessionId));
+                moved++;
+            }
+            nodes.remove(nodeId);
+            ring = newRing;
+            return moved;
+        } finally {
+            rebalanceLock.writeLock().unlock();
+        }
+    }
+
+    // Get (or create) the cart for a session on the node that owns it; waits while a
+    // rebalance is moving carts
+    public Cart getCart(String sessionId) {
+        rebalanceLock.readLock().lock();
+        try {
+            return ownerOf(ring, sessionId).getOrCreateCart(sessionId);
+        } finally {
+            rebalanceLock.readLock().unlock();
+        }
+    }
+
+    public boolean removeCart(String sessionId) {
+        rebalanceLock.readLock().lock();
+        try {
+            return ownerOf(ring, sessionId).removeCart(sessionId);
+        } finally {
+            rebalanceLock.readLock().unlock();
+        }
+    }
+
+    public String getNodeFor(String sessionId) {
+        rebalanceLock.readLock().lock();
+        try {
+            return ownerOf(ring, sessionId).getNodeId();
+        } finally {
+            rebalanceLock.readLock().unlock();
+        }
+    }
+
+    public CartStore getNode(String nodeId) {
+        synchronized (this) {
+            return nodes.get(nodeId);
+        }
+    }
+
+    // Attach a price table to every node; carts keep it when they migrate between nodes
+    public synchronized void setPriceTable(PriceTable table) {
+        priceTable = table;
+        for (CartStore store : nodes.values()) {
+            store.setPriceTable(table);
+        }
+    }
+
+    public synchronized void setPromotionCatalog(PromotionCatalog catalog) {
+        promotionCatalog = catalog;
+        for (CartStore store : nodes.values()) {
+            store.setPromotionCatalog(catalog);
+        }
+    }
+
+    public synchronized void setFxRates(FxRateTable rates) {
+        fxRates = rates;
+        for (CartStore store : nodes.values()) {
+            store.setFxRates(rates);
+        }
+    }
+
+    public synchronized void setCatalog(ProductCatalog catalog) {
+        this.catalog = catalog;
+        for (CartStore store : nodes.values()) {
+            store.setCatalog(catalog);
+        }
+    }
+
+    // Report every node's stock holds through one batcher; a migrated cart releases its holds
+    // on the old node and takes them again on the new one
+    public synchronized void setReservations(ReservationBatcher batcher) {
+        reservations = batcher;
+        for (CartStore store : nodes.values()) {
+            store.setReservations(batcher);
+        }
+    }
+
+    public synchronized Set<String> getNodeIds() {
+        return new LinkedHashSet<>(nodes.keySet());
+    }
+
+    public synchronized int getTotalCarts() {
+        int total = 0;
+        for (CartStore store : nodes.values()) {
+            total += store.size();
+        }
+        return total;
+    }
+
+    private static CartStore ownerOf(NavigableMap<Long, CartStore> current, String sessionId) {
+        if (sessionId == null || sessionId.isEmpty()) {
+            throw new IllegalArgumentException("Session id cannot be null or empty");
+        }
+
+        if (current.isEmpty()) {
+            throw new IllegalStateException("Cluster has no nodes");
+        }
+
+        Map.Entry<Long, CartStore> owner = current.ceilingEntry(hash(sessionId));
+        return owner != null ? owner.getValue() : current.firstEntry().getValue();
+    }
+
+    private static void migrate(String sessionId, CartStore source, CartStore target) {
+        byte[] data = source.exportCart(sessionId);
+        if (data != null) {
+            target.importCart(sessionId, data);
+        }
+    }
+
+    // 64-bit FNV-1a followed by a MurmurHash3 finalizer so similar keys spread over the whole ring
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.cart;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+// Compact binary form of a Cart, used to move carts between nodes of a CartCluster
+public final class CartCodec {
+    private static final int MAGIC = 0xCA27;
+    private static final byte FORMAT_VERSION = 5;
+
+    private CartCodec() {
+    }
+
+    public static byte[] encode(Cart cart) {
+        if (cart == null) {
+            throw new IllegalArgumentException("Cart cannot be null");
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeShort(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            cart.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static Cart decode(byte[] data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if ((in.readShort() & 0xFFFF) != MAGIC) {
+                throw new IllegalArgumentException("Not an encoded cart");
+            }
+            byte format = in.readByte();
+            if (format != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported cart format: " + format);
+            }
+            return Cart.readFrom(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corrupt cart data", e);
+        }
+    }
+}
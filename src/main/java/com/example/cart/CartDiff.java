@@ -0,0 +1,165 @@
+package com.example.cart;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+// Changes that turn one copy of a cart (at fromVersion) into a newer one (at toVersion):
+// lines to set to a quantity, lines to remove, and the newer cart's discount and own promotions.
+// Lets clients that hold a copy of a cart sync by applying small deltas instead of re-downloading it.
+public final class CartDiff {
+    private static final int MAGIC = 0xCADF;
+    private static final byte FORMAT_VERSION = 2;
+
+    // Lineage of the newer cart, and of the older cart the diff applies to
+    private final long lineage;
+    private final long baseLineage;
+    private final long fromVersion;
+    private final long toVersion;
+    private final double discountPercentage;
+    private final Map<String, Double> promotions;
+    private final Map<Product, Integer> upserts;
+    private final List<Product> removals;
+
+    CartDiff(long lineage, long baseLineage, long fromVersion, long toVersion, double discountPercentage, Map<String, Double> promotions,
+             Map<Product, Integer> upserts, List<Product> removals) {
+        this.lineage = lineage;
+        this.baseLineage = baseLineage;
+        this.fromVersion = fromVersion;
+        this.toVersion = toVersion;
+        this.discountPercentage = discountPercentage;
+        this.promotions = Collections.unmodifiableMap(promotions);
+        this.upserts = Collections.unmodifiableMap(upserts);
+        this.removals = Collections.unmodifiableList(removals);
+    }
+
+    // Diff that brings older up to date with newer; it only applies to older at its current version.
+    // When older is an unmodified earlier copy of newer (decoded from its encoding or synced by earlier
+    // diffs), only lines changed since older's version are visited; otherwise the lines are compared in full.
+    public static CartDiff between(Cart older, Cart newer) {
+        if (older == null || newer == null) {
+            throw new IllegalArgumentException("Carts cannot be null");
+        }
+        return newer.diffFrom(older);
+    }
+
+    long getLineage() {
+        return lineage;
+    }
+
+    long getBaseLineage() {
+        return baseLineage;
+    }
+
+    public long getFromVersion() {
+        return fromVersion;
+    }
+
+    public long getToVersion() {
+        return toVersion;
+    }
+
+    public double getDiscountPercentage() {
+        return discountPercentage;
+    }
+
+    // The newer cart's own promotions (not those from a shared PromotionCatalog)
+    public Map<String, Double> getPromotions() {
+        return promotions;
+    }
+
+    // Lines to set to the given quantity, added if missing
+    public Map<Product, Integer> getUpserts() {
+        return upserts;
+    }
+
+    public List<Product> getRemovals() {
+        return removals;
+    }
+
+    // True when no line changes
+    public boolean isEmpty() {
+        return upserts.isEmpty() && removals.isEmpty();
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + 48 * (upserts.size() + removals.size()));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeShort(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(lineage);
+            out.writeLong(baseLineage);
+            out.writeLong(fromVersion);
+            out.writeLong(toVersion);
+            out.writeDouble(discountPercentage);
+
+            out.writeInt(promotions.size());
+            for (Map.Entry<String, Double> promotion : promotions.entrySet()) {
+                out.writeUTF(promotion.getKey());
+                out.writeDouble(promotion.getValue());
+            }
+            out.writeInt(upserts.size());
+            for (Map.Entry<Product, Integer> upsert : upserts.entrySet()) {
+                Cart.writeProduct(out, upsert.getKey());
+                out.writeInt(upsert.getValue());
+            }
+            out.writeInt(removals.size());
+            for (Product product : removals) {
+                Cart.writeProduct(out, product);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static CartDiff decode(byte[] data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if ((in.readShort() & 0xFFFF) != MAGIC) {
+                throw new IllegalArgumentException("Not an encoded cart diff");
+            }
+            byte format = in.readByte();
+            if (format != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported cart diff format: " + format);
+            }
+            long lineage = in.readLong();
+            long baseLineage = in.readLong();
+            long fromVersion = in.readLong();
+            long toVersion = in.readLong();
+            double discount = in.readDouble();
+
+            int promotionCount = in.readInt();
+            Map<String, Double> promotions = new HashMap<>();
+            for (int i = 0; i < promotionCount; i++) {
+                promotions.put(in.readUTF(), in.readDouble());
+            }
+            int upsertCount = in.readInt();
+            Map<Product, Integer> upserts = new LinkedHashMap<>();
+            for (int i = 0; i < upsertCount; i++) {
+                upserts.put(Cart.readProduct(in), in.readInt());
+            }
+            int removalCount = in.readInt();
+            List<Product> removals = new ArrayList<>(removalCount);
+            for (int i = 0; i < removalCount; i++) {
+                removals.add(Cart.readProduct(in));
+            }
+            return new CartDiff(lineage, baseLineage, fromVersion, toVersion, discount, promotions, upserts, removals);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corrupt cart diff data", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CartDiff{%d -> %d, upserts=%d, removals=%d}",
+            fromVersion, toVersion, upserts.size(), removals.size());
+    }
+}
@@ -0,0 +1,335 @@
+package com.example.cart;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Streams carts to a channel for analytics without copying them or allocating per line.
+// Lines arrive through Cart.forEachLine and are encoded straight into one reusable buffer.
+//
+// CSV: a header row, then one row per line:
+//     cart_id,name,unit_price,category,quantity,line_total  (amounts with two decimals)
+//
+// COLUMNAR: one block per cart, big-endian:
+//     int lineCount, string cartId,
+//     lineCount x string name, lineCount x double unitPrice, lineCount x string category,
+//     lineCount x int quantity, lineCount x double lineTotal
+// where a string is an int byte length (-1 for null) followed by UTF-8 bytes.
+public class CartExporter implements LineConsumer, Closeable {
+    public enum Format {
+        CSV,
+        COLUMNAR
+    }
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final byte[] CSV_HEADER =
+        "cart_id,name,unit_price,category,quantity,line_total\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final WritableByteChannel channel;
+    private final Format format;
+    private final ByteBuffer buffer;
+
+    // Per-cart scratch columns for the columnar format, grown on demand and reused across carts
+    private String[] names = new String[16];
+    private String[] categories = new String[16];
+    private double[] prices = new double[16];
+    private int[] quantities = new int[16];
+    private double[] lineTotals = new double[16];
+    private int pending;
+
+    private String currentCartId;
+    private long cartsWritten;
+    private long linesWritten;
+
+    public CartExporter(WritableByteChannel channel, Format format) {
+        this(channel, format, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CartExporter(WritableByteChannel channel, Format format, int bufferSize) {
+        if (channel == null) {
+            throw new IllegalArgumentException("Channel cannot be null");
+        }
+        if (format == null) {
+            throw new IllegalArgumentException("Format cannot be null");
+        }
+        if (bufferSize < 64) {
+            throw new IllegalArgumentException("Buffer size must be at least 64 bytes");
+        }
+        this.channel = channel;
+        this.format = format;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        if (format == Format.CSV) {
+            buffer.put(CSV_HEADER);
+        }
+    }
+
+    // Write one cart; lines are encoded as the cart streams them
+    public void export(String cartId, Cart cart) throws IOException {
+        if (cartId == null || cart == null) {
+            throw new IllegalArgumentException("Cart id and cart cannot be null");
+        }
+
+        currentCartId = cartId;
+        pending = 0;
+        try {
+            cart.forEachLine(this);
+        } catch (UncheckedExportException e) {
+            throw e.getCause();
+        }
+        if (format == Format.COLUMNAR) {
+            writeColumns();
+        }
+        cartsWritten++;
+    }
+
+    // Write every cart held by a store, keyed by session id
+    public void exportAll(CartStore store) throws IOException {
+        for (String sessionId : store.getSessionIds()) {
+            Cart cart = store.getCart(sessionId);
+            if (cart != null) {
+                export(sessionId, cart);
+            }
+        }
+    }
+
+    @Override
+    public void accept(String name, double unitPrice, String category, int quantity, double lineTotal) {
+        linesWritten++;
+        if (format == Format.COLUMNAR) {
+            bufferLine(name, unitPrice, category, quantity, lineTotal);
+            return;
+        }
+
+        try {
+            writeCsvField(currentCartId);
+            put((byte) ',');
+            writeCsvField(name);
+            put((byte) ',');
+            writeAmount(unitPrice);
+            put((byte) ',');
+            writeCsvField(category);
+            put((byte) ',');
+            writeLong(quantity);
+            put((byte) ',');
+            writeAmount(lineTotal);
+            put((byte) '\n');
+        } catch (IOException e) {
+            throw new UncheckedExportException(e);
+        }
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Flushes buffered output; the channel itself stays open and belongs to the caller
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    public long getCartsWritten() {
+        return cartsWritten;
+    }
+
+    public long getLinesWritten() {
+        return linesWritten;
+    }
+
+    private void bufferLine(String name, double unitPrice, String category, int quantity, double lineTotal) {
+        if (pending == names.length) {
+            int capacity = pending * 2;
+            names = Arrays.copyOf(names, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            lineTotals = Arrays.copyOf(lineTotals, capacity);
+        }
+        names[pending] = name;
+        prices[pending] = unitPrice;
+        categories[pending] = category;
+        quantities[pending] = quantity;
+        lineTotals[pending] = lineTotal;
+        pending++;
+    }
+
+    private void writeColumns() throws IOException {
+        ensure(4);
+        buffer.putInt(pending);
+        writeBinaryString(currentCartId);
+        for (int i = 0; i < pending; i++) {
+            writeBinaryString(names[i]);
+        }
+        for (int i = 0; i < pending; i++) {
+            ensure(8);
+            buffer.putDouble(prices[i]);
+        }
+        for (int i = 0; i < pending; i++) {
+            writeBinaryString(categories[i]);
+        }
+        for (int i = 0; i < pending; i++) {
+            ensure(4);
+            buffer.putInt(quantities[i]);
+        }
+        for (int i = 0; i < pending; i++) {
+            ensure(8);
+            buffer.putDouble(lineTotals[i]);
+        }
+        // Drop references so exported carts can be collected
+        Arrays.fill(names, 0, pending, null);
+        Arrays.fill(categories, 0, pending, null);
+        pending = 0;
+    }
+
+    private void writeBinaryString(String value) throws IOException {
+        ensure(4);
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(utf8Length(value));
+        writeUtf8(value);
+    }
+
+    private void writeCsvField(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writeUtf8(value);
+            return;
+        }
+
+        put((byte) '"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                writeUtf8(value, start, i + 1);
+                start = i;
+            }
+        }
+        writeUtf8(value, start, value.length());
+        put((byte) '"');
+    }
+
+    // Fixed two-decimal rendering without going through String formatting
+    private void writeAmount(double value) throws IOException {
+        if (Double.isNaN(value) || Math.abs(value) >= 9.0e16) {
+            writeUtf8(Double.toString(value));
+            return;
+        }
+        long cents = Math.round(value * 100.0);
+        if (cents < 0) {
+            put((byte) '-');
+            cents = -cents;
+        }
+        writeLong(cents / 100);
+        put((byte) '.');
+        put((byte) ('0' + (cents % 100) / 10));
+        put((byte) ('0' + cents % 10));
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value < 0) {
+            put((byte) '-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        ensure(20);
+        for (; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + (value / divisor) % 10));
+        }
+    }
+
+    private void writeUtf8(String value) throws IOException {
+        writeUtf8(value, 0, value.length());
+    }
+
+    private void writeUtf8(String value, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            ensure(4);
+            int c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate((char) c) && i + 1 < to
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint((char) c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | codePoint >> 18));
+                buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint & 0x3F));
+            } else if (Character.isSurrogate((char) c)) {
+                // Unpaired surrogate: '?' like String.getBytes(UTF_8), as a single byte
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12));
+                buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private void put(byte b) throws IOException {
+        ensure(1);
+        buffer.put(b);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    // Carries an IOException out of the LineConsumer callback, which cannot throw checked exceptions
+    private static final class UncheckedExportException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private UncheckedExportException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.cart;
+
+// Thrown when a mutation would take a cart past its CartLimits or overflow a quantity;
+// the cart is left unchanged
+public class CartLimitExceededException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    public CartLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.cart;
+
+// Upper bounds a Cart enforces on every mutation that grows it; shrinking is always allowed
+public final class CartLimits {
+    public static final CartLimits UNLIMITED =
+        new CartLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE, Double.POSITIVE_INFINITY);
+
+    private final int maxLineQuantity;
+    private final int maxLines;
+    private final long maxUnits;
+    private final double maxSubtotal;
+
+    public CartLimits(int maxLineQuantity, int maxLines, long maxUnits, double maxSubtotal) {
+        if (maxLineQuantity <= 0 || maxLines <= 0 || maxUnits <= 0) {
+            throw new IllegalArgumentException("Limits must be positive");
+        }
+        if (!(maxSubtotal > 0)) {
+            throw new IllegalArgumentException("Subtotal limit must be positive");
+        }
+        this.maxLineQuantity = maxLineQuantity;
+        this.maxLines = maxLines;
+        this.maxUnits = maxUnits;
+        this.maxSubtotal = maxSubtotal;
+    }
+
+    // Most units of one product on a single line
+    public int getMaxLineQuantity() {
+        return maxLineQuantity;
+    }
+
+    // Most distinct lines in the cart
+    public int getMaxLines() {
+        return maxLines;
+    }
+
+    // Most units across all lines
+    public long getMaxUnits() {
+        return maxUnits;
+    }
+
+    // Highest subtotal (before discounts, in the cart currency)
+    public double getMaxSubtotal() {
+        return maxSubtotal;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CartLimits{lineQuantity=%d, lines=%d, units=%d, subtotal=%.2f}",
+            maxLineQuantity, maxLines, maxUnits, maxSubtotal);
+    }
+}
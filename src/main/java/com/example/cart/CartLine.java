@@ -0,0 +1,54 @@
+package com.example.cart;
+
+import java.util.Objects;
+
+// Immutable view of one cart line at the time it was read
+public final class CartLine {
+    private final Product product;
+    private final int quantity;
+    private final double unitPrice;
+    private final double lineTotal;
+
+    public CartLine(Product product, int quantity, double unitPrice) {
+        this.product = product;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+        this.lineTotal = unitPrice * quantity;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public double getLineTotal() {
+        return lineTotal;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CartLine line = (CartLine) o;
+        return quantity == line.quantity &&
+                Double.compare(line.unitPrice, unitPrice) == 0 &&
+                product.equals(line.product);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(product, quantity, unitPrice);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s x%d = $%.2f", product.getName(), quantity, lineTotal);
+    }
+}
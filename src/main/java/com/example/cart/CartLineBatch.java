@@ -0,0 +1,185 @@
+package com.example.cart;
+
+import java.util.*;
+
+// Columnar snapshot of the lines of many carts for analytical queries.
+// Each line is one row across parallel primitive arrays (cart, quantity, unit price, promotion
+// discount, name code, category code); names use a batch-local dictionary and categories reuse
+// CategoryDictionary codes. The aggregate kernels are plain counted loops over those arrays,
+// which the JIT can unroll and vectorize, instead of walking Product/Cart object graphs.
+public class CartLineBatch {
+    private int lineCount;
+    private int[] cartIndex = new int[64];
+    private int[] quantity = new int[64];
+    private double[] unitPrice = new double[64];
+    private double[] promotionDiscount = new double[64];
+    private int[] nameCode = new int[64];
+    private int[] categoryCode = new int[64];
+
+    private int cartCount;
+    private double[] cartDiscountPercentage = new double[16];
+
+    private final Map<String, Integer> nameCodes = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    // Append every line of a cart; the cart is read, never retained
+    public void addCart(Cart cart) {
+        if (cart == null) {
+            throw new IllegalArgumentException("Cart cannot be null");
+        }
+
+        Map<String, Double> promotions = cart.getActivePromotions();
+        int cartRow = cartCount;
+        if (cartCount == cartDiscountPercentage.length) {
+            cartDiscountPercentage = Arrays.copyOf(cartDiscountPercentage, cartCount * 2);
+        }
+        cartDiscountPercentage[cartCount++] = cart.getDiscountPercentage();
+
+        cart.forEachLine((name, price, category, qty, lineTotal) -> {
+            ensureCapacity(lineCount + 1);
+            int row = lineCount++;
+            cartIndex[row] = cartRow;
+            quantity[row] = qty;
+            unitPrice[row] = price;
+            promotionDiscount[row] = promotions.getOrDefault(name, 0.0) * qty;
+            nameCode[row] = encodeName(name);
+            categoryCode[row] = CategoryDictionary.encode(category);
+        });
+    }
+
+    public void addCarts(Collection<Cart> carts) {
+        for (Cart cart : carts) {
+            addCart(cart);
+        }
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public int getCartCount() {
+        return cartCount;
+    }
+
+    // Sum of quantity x unit price over all lines
+    public double grossRevenue() {
+        double sum = 0.0;
+        for (int i = 0; i < lineCount; i++) {
+            sum += quantity[i] * unitPrice[i];
+        }
+        return sum;
+    }
+
+    // Gross revenue minus the percentage and promotion discounts of every line
+    public double netRevenue() {
+        return grossRevenue() - totalDiscount();
+    }
+
+    public double totalDiscount() {
+        double sum = 0.0;
+        for (int i = 0; i < lineCount; i++) {
+            double gross = quantity[i] * unitPrice[i];
+            sum += gross * (cartDiscountPercentage[cartIndex[i]] / 100.0) + promotionDiscount[i];
+        }
+        return sum;
+    }
+
+    // Net revenue grouped by category name (null category included under a null key)
+    public Map<String, Double> revenueByCategory() {
+        int codes = CategoryDictionary.size() + 1;
+        double[] revenue = new double[codes];
+        boolean[] seen = new boolean[codes];
+        for (int i = 0; i < lineCount; i++) {
+            double gross = quantity[i] * unitPrice[i];
+            int slot = categoryCode[i] + 1;
+            revenue[slot] += gross - gross * (cartDiscountPercentage[cartIndex[i]] / 100.0) - promotionDiscount[i];
+            seen[slot] = true;
+        }
+
+        Map<String, Double> result = new HashMap<>();
+        for (int slot = 0; slot < codes; slot++) {
+            if (seen[slot]) {
+                result.put(CategoryDictionary.decode(slot - 1), revenue[slot]);
+            }
+        }
+        return result;
+    }
+
+    // Average number of units per cart
+    public double averageBasketSize() {
+        if (cartCount == 0) {
+            return 0.0;
+        }
+        long units = 0;
+        for (int i = 0; i < lineCount; i++) {
+            units += quantity[i];
+        }
+        return (double) units / cartCount;
+    }
+
+    // Share of lines that received a fixed promotion discount
+    public double promotionUptake() {
+        if (lineCount == 0) {
+            return 0.0;
+        }
+        int promoted = 0;
+        for (int i = 0; i < lineCount; i++) {
+            promoted += promotionDiscount[i] > 0 ? 1 : 0;
+        }
+        return (double) promoted / lineCount;
+    }
+
+    // The n product names with the highest gross revenue, highest first; O(lines + names log n)
+    public List<Map.Entry<String, Double>> topProductsByRevenue(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n cannot be negative");
+        }
+
+        double[] revenue = new double[names.size()];
+        for (int i = 0; i < lineCount; i++) {
+            revenue[nameCode[i]] += quantity[i] * unitPrice[i];
+        }
+
+        PriorityQueue<Integer> smallest = new PriorityQueue<>(Math.max(1, n),
+            (a, b) -> Double.compare(revenue[a], revenue[b]));
+        for (int code = 0; code < revenue.length && n > 0; code++) {
+            if (smallest.size() < n) {
+                smallest.add(code);
+            } else if (revenue[code] > revenue[smallest.peek()]) {
+                smallest.poll();
+                smallest.add(code);
+            }
+        }
+
+        List<Map.Entry<String, Double>> top = new ArrayList<>(smallest.size());
+        while (!smallest.isEmpty()) {
+            int code = smallest.poll();
+            top.add(new AbstractMap.SimpleImmutableEntry<>(names.get(code), revenue[code]));
+        }
+        Collections.reverse(top);
+        return top;
+    }
+
+    private int encodeName(String name) {
+        Integer code = nameCodes.get(name);
+        if (code == null) {
+            code = names.size();
+            names.add(name);
+            nameCodes.put(name, code);
+        }
+        return code;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= quantity.length) {
+            return;
+        }
+        int capacity = Math.max(required, quantity.length * 2);
+        cartIndex = Arrays.copyOf(cartIndex, capacity);
+        quantity = Arrays.copyOf(quantity, capacity);
+        unitPrice = Arrays.copyOf(unitPrice, capacity);
+        promotionDiscount = Arrays.copyOf(promotionDiscount, capacity);
+        nameCode = Arrays.copyOf(nameCode, capacity);
+        categoryCode = Arrays.copyOf(categoryCode, capacity);
+    }
+}
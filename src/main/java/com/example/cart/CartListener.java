@@ -0,0 +1,10 @@
+package com.example.cart;
+
+// Notified when a SKU (product name) gains its first line in a cart or loses its last one.
+// Callbacks run while the cart is locked, so implementations must be quick and must not call the cart.
+public interface CartListener {
+
+    void skuAdded(Cart cart, String sku);
+
+    void skuRemoved(Cart cart, String sku);
+}
@@ -0,0 +1,240 @@
+package com.example.cart;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-process store of carts keyed by session id; one of these backs each node of a CartCluster.
+// The store listens to its carts and keeps a ProductCartIndex, so carts holding a given
+// SKU can be found (to reprice, notify or evict) without scanning every session.
+public class CartStore {
+    private final String nodeId;
+    private final Map<String, StoredCart> carts;
+    private final ProductCartIndex index;
+
+    // Node-level pricing attached to every cart this store creates or imports. Serialized carts do not
+    // carry these tables, so a cart migrated from another node is priced against this node's instead.
+    private volatile PriceTable priceTable;
+    private volatile PromotionCatalog promotionCatalog;
+    private volatile FxRateTable fxRates;
+    private volatile ProductCatalog catalog;
+    // Stock holds of carts created or imported here are reported through this batcher; a cart's
+    // holds are released whenever it leaves the store (removed, evicted, replaced or exported)
+    private volatile ReservationBatcher reservations;
+
+    public CartStore(String nodeId) {
+        if (nodeId == null || nodeId.isEmpty()) {
+            throw new IllegalArgumentException("Node id cannot be null or empty");
+        }
+        this.nodeId = nodeId;
+        this.carts = new ConcurrentHashMap<>();
+        this.index = new ProductCartIndex();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    // Get the cart for a session, creating an empty one on first access
+    public Cart getOrCreateCart(String sessionId) {
+        validateSessionId(sessionId);
+        return carts.computeIfAbsent(sessionId, id -> attach(id, withNodeSettings(new Cart()))).cart;
+    }
+
+    // Get the cart for a session, or null if this store does not hold it
+    public Cart getCart(String sessionId) {
+        StoredCart stored = sessionId == null ? null : carts.get(sessionId);
+        return stored == null ? null : stored.cart;
+    }
+
+    public void putCart(String sessionId, Cart cart) {
+        validateSessionId(sessionId);
+        if (cart == null) {
+            throw new IllegalArgumentException("Cart cannot be null");
+        }
+        StoredCart previous = carts.put(sessionId, attach(sessionId, cart));
+        if (previous != null) {
+            detach(previous);
+        }
+    }
+
+    public boolean removeCart(String sessionId) {
+        StoredCart removed = sessionId == null ? null : carts.remove(sessionId);
+        if (removed == null) {
+            return false;
+        }
+        detach(removed);
+        return true;
+    }
+
+    public boolean containsSession(String sessionId) {
+        return sessionId != null && carts.containsKey(sessionId);
+    }
+
+    public Set<String> getSessionIds() {
+        return new HashSet<>(carts.keySet());
+    }
+
+    public int size() {
+        return carts.size();
+    }
+
+    // Sessions whose cart holds at least one line of the SKU
+    public List<String> getSessionsContaining(String sku) {
+        return index.getSessions(sku);
+    }
+
+    // Carts holding at least one line of the SKU, e.g. to reprice after a promotion change
+    public List<Cart> getCartsContaining(String sku) {
+        List<String> sessions = index.getSessions(sku);
+        List<Cart> result = new ArrayList<>(sessions.size());
+        for (String sessionId : sessions) {
+            Cart cart = getCart(sessionId);
+            if (cart != null) {
+                result.add(cart);
+            }
+        }
+        return result;
+    }
+
+    // Remove every cart holding the SKU; returns how many were evicted
+    public int evictCartsContaining(String sku) {
+        int evicted = 0;
+        for (String sessionId : index.getSessions(sku)) {
+            if (removeCart(sessionId)) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public int countCartsContaining(String sku) {
+        return index.countSessions(sku);
+    }
+
+    // Remove a cart and return it in serialized form, or null if absent
+    byte[] exportCart(String sessionId) {
+        StoredCart removed = carts.remove(sessionId);
+        if (removed == null) {
+            return null;
+        }
+        detach(removed);
+        return CartCodec.encode(removed.cart);
+    }
+
+    void importCart(String sessionId, byte[] data) {
+        putCart(sessionId, withNodeSettings(CartCodec.decode(data)));
+    }
+
+    public PriceTable getPriceTable() {
+        return priceTable;
+    }
+
+    // Attach a price table to every cart held now and to carts created or imported later
+    // (null detaches it); carts added with putCart keep their own until then
+    public void setPriceTable(PriceTable table) {
+        priceTable = table;
+        for (StoredCart stored : carts.values()) {
+            stored.cart.setPriceTable(table);
+        }
+    }
+
+    public PromotionCatalog getPromotionCatalog() {
+        return promotionCatalog;
+    }
+
+    // Like setPriceTable, for the shared promotion catalog
+    public void setPromotionCatalog(PromotionCatalog catalog) {
+        promotionCatalog = catalog;
+        for (StoredCart stored : carts.values()) {
+            stored.cart.setPromotionCatalog(catalog);
+        }
+    }
+
+    public FxRateTable getFxRates() {
+        return fxRates;
+    }
+
+    // Like setPriceTable, for the exchange rates foreign-currency lines are converted with
+    public void setFxRates(FxRateTable rates) {
+        fxRates = rates;
+        for (StoredCart stored : carts.values()) {
+            stored.cart.setFxRates(rates);
+        }
+    }
+
+    public ProductCatalog getCatalog() {
+        return catalog;
+    }
+
+    // Like setPriceTable, for the catalog the id-keyed Cart methods resolve products with
+    public void setCatalog(ProductCatalog catalog) {
+        this.catalog = catalog;
+        for (StoredCart stored : carts.values()) {
+            stored.cart.setCatalog(catalog);
+        }
+    }
+
+    public ReservationBatcher getReservations() {
+        return reservations;
+    }
+
+    // Like setPriceTable, for the batcher that reports stock holds
+    public void setReservations(ReservationBatcher batcher) {
+        reservations = batcher;
+        for (StoredCart stored : carts.values()) {
+            stored.cart.setReservations(batcher);
+        }
+    }
+
+    private Cart withNodeSettings(Cart cart) {
+        cart.attachNodePricing(priceTable, promotionCatalog, fxRates);
+        ProductCatalog products = catalog;
+        if (products != null) {
+            cart.setCatalog(products);
+        }
+        ReservationBatcher batcher = reservations;
+        if (batcher != null) {
+            cart.setReservations(batcher);
+        }
+        return cart;
+    }
+
+    private StoredCart attach(String sessionId, Cart cart) {
+        StoredCart stored = new StoredCart(cart, index.register(sessionId));
+        cart.addListener(stored);
+        return stored;
+    }
+
+    private void detach(StoredCart stored) {
+        stored.cart.removeListener(stored);
+        stored.cart.setReservations(null);
+        index.release(stored.ordinal);
+    }
+
+    private void validateSessionId(String sessionId) {
+        if (sessionId == null || sessionId.isEmpty()) {
+            throw new IllegalArgumentException("Session id cannot be null or empty");
+        }
+    }
+
+    // A cart together with its ordinal in the index; it forwards the cart's SKU changes to the index
+    private final class StoredCart implements CartListener {
+        private final Cart cart;
+        private final int ordinal;
+
+        private StoredCart(Cart cart, int ordinal) {
+            this.cart = cart;
+            this.ordinal = ordinal;
+        }
+
+        @Override
+        public void skuAdded(Cart source, String sku) {
+            index.add(sku, ordinal);
+        }
+
+        @Override
+        public void skuRemoved(Cart source, String sku) {
+            index.remove(sku, ordinal);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.cart;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Process-wide dictionary that encodes category names as small int codes, so products
+// share one String per category and compare categories with a single int comparison.
+// Codes are dense, assigned on first use and never reused; NULL_CODE stands for a null category.
+public final class CategoryDictionary {
+    public static final int NULL_CODE = -1;
+
+    private static final Map<String, Integer> CODES = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[16];
+    private static int size;
+
+    private CategoryDictionary() {
+    }
+
+    // Code for a category, assigning a new one the first time the category is seen
+    public static int encode(String category) {
+        if (category == null) {
+            return NULL_CODE;
+        }
+        Integer code = CODES.get(category);
+        return code != null ? code : assign(category);
+    }
+
+    public static String decode(int code) {
+        if (code == NULL_CODE) {
+            return null;
+        }
+        String[] current = names;
+        if (code < 0 || code >= current.length || current[code] == null) {
+            throw new IllegalArgumentException("Unknown category code: " + code);
+        }
+        return current[code];
+    }
+
+    // Code of an already known category, or NULL_CODE if it was never encoded
+    public static int lookup(String category) {
+        Integer code = category == null ? null : CODES.get(category);
+        return code == null ? NULL_CODE : code;
+    }
+
+    public static synchronized int size() {
+        return size;
+    }
+
+    private static synchronized int assign(String category) {
+        Integer existing = CODES.get(category);
+        if (existing != null) {
+            return existing;
+        }
+
+        String[] current = names;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        int code = size++;
+        current[code] = category;
+        // Publish the array before the code so decode() always finds the name
+        names = current;
+        CODES.put(category, code);
+        return code;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.cart;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+// Bounded log of which products changed at which cart version, so a diff against an older copy
+// of the cart only visits the lines touched since then. Oldest entries are overwritten when full;
+// diffs from before the oldest retained version are no longer possible. Not thread-safe.
+final class ChangeJournal {
+    static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int INITIAL_SIZE = 16;
+
+    // Grown on demand up to capacity, so carts that change little stay small
+    private final int capacity;
+    private long[] versions;
+    private Product[] products;
+    private int next;
+    private int size;
+    // Changes after this version are all still in the journal
+    private long coveredFrom;
+
+    ChangeJournal(int capacity) {
+        this.capacity = capacity;
+        this.versions = new long[Math.min(INITIAL_SIZE, capacity)];
+        this.products = new Product[versions.length];
+    }
+
+    void record(long version, Product product) {
+        if (size == versions.length && size < capacity) {
+            grow();
+        }
+        if (size == versions.length) {
+            coveredFrom = versions[next];
+        } else {
+            size++;
+        }
+        versions[next] = version;
+        products[next] = product;
+        next = (next + 1) % versions.length;
+    }
+
+    // Only called while the arrays are full and have never wrapped, so entries are in order
+    private void grow() {
+        int length = Math.min(capacity, versions.length * 2);
+        versions = Arrays.copyOf(versions, length);
+        products = Arrays.copyOf(products, length);
+        next = size;
+    }
+
+    // Forget all entries; only changes after version can be served from now on
+    void reset(long version) {
+        Arrays.fill(products, null);
+        next = 0;
+        size = 0;
+        coveredFrom = version;
+    }
+
+    // Add every product changed after sinceVersion to changed (newest first, with repeats),
+    // or return false if the journal no longer reaches back that far
+    boolean changedSince(long sinceVersion, Collection<Product> changed) {
+        if (sinceVersion < coveredFrom) {
+            return false;
+        }
+        for (int n = 0, i = next; n < size; n++) {
+            i = (i - 1 + versions.length) % versions.length;
+            if (versions[i] <= sinceVersion) {
+                break;
+            }
+            changed.add(products[i]);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.cart;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Result of Cart.checkout: the cart's own totals plus what every pricing stage added
+public final class Checkout {
+    private final double subtotal;
+    private final double discount;
+    private final double merchandiseTotal;
+    private final Map<String, Double> stageAmounts;
+    private final double grandTotal;
+
+    Checkout(double subtotal, double discount, Map<String, Double> stageAmounts) {
+        this.subtotal = subtotal;
+        this.discount = discount;
+        this.merchandiseTotal = Math.max(0, subtotal - discount);
+        this.stageAmounts = Collections.unmodifiableMap(new LinkedHashMap<>(stageAmounts));
+
+        double total = merchandiseTotal;
+        for (double amount : stageAmounts.values()) {
+            total += amount;
+        }
+        this.grandTotal = total;
+    }
+
+    public double getSubtotal() {
+        return subtotal;
+    }
+
+    public double getDiscount() {
+        return discount;
+    }
+
+    // Subtotal minus discounts, the same as Cart.getTotal()
+    public double getMerchandiseTotal() {
+        return merchandiseTotal;
+    }
+
+    // Amount a stage added, 0 if there was no stage with that name
+    public double getStageAmount(String stageName) {
+        return stageAmounts.getOrDefault(stageName, 0.0);
+    }
+
+    // Stage amounts in stage order
+    public Map<String, Double> getStageAmounts() {
+        return stageAmounts;
+    }
+
+    public double getGrandTotal() {
+        return grandTotal;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Checkout{subtotal=%.2f, discount=%.2f, stages=%s, total=%.2f}",
+            subtotal, discount, stageAmounts, grandTotal);
+    }
+}
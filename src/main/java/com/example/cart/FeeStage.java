@@ -0,0 +1,36 @@
+package com.example.cart;
+
+// Order fee made of a fixed part plus a percentage of the running total (e.g. a payment fee)
+public class FeeStage implements PricingStage {
+    private final String name;
+    private final double fixedAmount;
+    private final double percentage;
+
+    public FeeStage(String name, double fixedAmount, double percentage) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Fee name cannot be null or empty");
+        }
+        if (fixedAmount < 0) {
+            throw new IllegalArgumentException("Fee amount cannot be negative");
+        }
+        if (percentage < 0 || percentage > 100) {
+            throw new IllegalArgumentException("Fee percentage must be between 0 and 100");
+        }
+        this.name = name;
+        this.fixedAmount = fixedAmount;
+        this.percentage = percentage;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public double orderAmount(double merchandiseTotal, double runningTotal) {
+        if (merchandiseTotal == 0) {
+            return 0.0;
+        }
+        return fixedAmount + runningTotal * (percentage / 100.0);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.cart;
+
+import java.util.Currency;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Versioned exchange rates, each quoted as units of a currency per one unit of the base currency.
+// Carts cache conversion factors and only recompute them once the version moves on.
+public class FxRateTable {
+    private final Currency base;
+    private final Map<Currency, Double> rates = new ConcurrentHashMap<>();
+    private volatile long version;
+
+    public FxRateTable(Currency base) {
+        if (base == null) {
+            throw new IllegalArgumentException("Base currency cannot be null");
+        }
+        this.base = base;
+    }
+
+    public synchronized void setRate(Currency currency, double unitsPerBase) {
+        if (currency == null) {
+            throw new IllegalArgumentException("Currency cannot be null");
+        }
+        if (currency.equals(base)) {
+            throw new IllegalArgumentException("The base currency always has rate 1");
+        }
+        if (!(unitsPerBase > 0) || Double.isInfinite(unitsPerBase)) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+        rates.put(currency, unitsPerBase);
+        version++;
+    }
+
+    public synchronized boolean removeRate(Currency currency) {
+        if (currency == null || rates.remove(currency) == null) {
+            return false;
+        }
+        version++;
+        return true;
+    }
+
+    public Currency getBase() {
+        return base;
+    }
+
+    // Units of the currency per base unit, or NaN if the table has no rate for it
+    public double getRate(Currency currency) {
+        if (base.equals(currency)) {
+            return 1.0;
+        }
+        Double rate = currency == null ? null : rates.get(currency);
+        return rate == null ? Double.NaN : rate;
+    }
+
+    // Factor that converts an amount in one currency into another, or NaN if either rate is missing
+    public double factor(Currency from, Currency to) {
+        if (from.equals(to)) {
+            return 1.0;
+        }
+        return getRate(to) / getRate(from);
+    }
+
+    public double convert(double amount, Currency from, Currency to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Currencies cannot be null");
+        }
+        double factor = factor(from, to);
+        if (Double.isNaN(factor)) {
+            throw new IllegalStateException("No exchange rate between " + from + " and " + to);
+        }
+        return amount * factor;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
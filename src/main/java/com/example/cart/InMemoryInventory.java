@@ -0,0 +1,50 @@
+package com.example.cart;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// InventoryGateway stand-in that keeps stock and holds in memory, for tests and local runs
+public class InMemoryInventory implements InventoryGateway {
+    private final Map<Product, Integer> stock = new HashMap<>();
+    private final Map<Product, Integer> held = new HashMap<>();
+    private long calls;
+    private long deltasReceived;
+
+    public synchronized void setStock(Product product, int quantity) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Stock cannot be negative");
+        }
+        stock.put(product, quantity);
+    }
+
+    @Override
+    public synchronized void adjustHolds(Map<Product, Integer> deltas) {
+        calls++;
+        deltasReceived += deltas.size();
+        for (Map.Entry<Product, Integer> delta : deltas.entrySet()) {
+            held.merge(delta.getKey(), delta.getValue(), (current, change) -> current + change == 0 ? null : current + change);
+        }
+    }
+
+    public synchronized int getHeld(Product product) {
+        return held.getOrDefault(product, 0);
+    }
+
+    // Stock minus holds; may go negative when carts hold more than is on hand
+    public synchronized int getAvailable(Product product) {
+        return stock.getOrDefault(product, 0) - getHeld(product);
+    }
+
+    // Number of adjustHolds calls received
+    public synchronized long getCalls() {
+        return calls;
+    }
+
+    // Number of per-product deltas received across all calls
+    public synchronized long getDeltasReceived() {
+        return deltasReceived;
+    }
+}
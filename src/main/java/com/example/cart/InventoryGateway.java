@@ -0,0 +1,11 @@
+package com.example.cart;
+
+import java.util.Map;
+
+// Inventory system that holds stock for carts. Receives coalesced quantity deltas per product:
+// positive values place (more) holds, negative values release them. Calls come from
+// ReservationBatcher flushes, possibly while a cart is locked, so implementations should be quick.
+public interface InventoryGateway {
+
+    void adjustHolds(Map<Product, Integer> deltas);
+}
@@ -0,0 +1,9 @@
+package com.example.cart;
+
+// Receives cart lines one at a time from Cart.forEachLine, with primitive arguments so
+// streaming over a cart does not allocate per line. Called while the cart is read-locked.
+@FunctionalInterface
+public interface LineConsumer {
+
+    void accept(String name, double unitPrice, String category, int quantity, double lineTotal);
+}
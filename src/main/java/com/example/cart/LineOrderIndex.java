@@ -0,0 +1,88 @@
+package com.example.cart;
+
+import java.util.*;
+
+// Cart lines kept sorted by line total (highest first) and by name, updated in O(log n)
+// per line change so sorted views and top-N queries never re-sort the whole cart.
+// Owned by a Cart and only touched under its lock.
+final class LineOrderIndex {
+    private static final Comparator<Entry> BY_TOTAL_DESCENDING = (a, b) -> {
+        int byTotal = Double.compare(b.lineTotal, a.lineTotal);
+        return byTotal != 0 ? byTotal : Long.compare(a.sequence, b.sequence);
+    };
+    private static final Comparator<Entry> BY_NAME = (a, b) -> {
+        int byName = a.product.getName().compareTo(b.product.getName());
+        return byName != 0 ? byName : Long.compare(a.sequence, b.sequence);
+    };
+
+    private final Map<Product, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> byTotal = new TreeSet<>(BY_TOTAL_DESCENDING);
+    private final TreeSet<Entry> byName = new TreeSet<>(BY_NAME);
+    private long nextSequence;
+
+    void update(Product product, int quantity, double unitPrice) {
+        Entry entry = entries.get(product);
+        if (entry == null) {
+            entry = new Entry(product, nextSequence++);
+            entries.put(product, entry);
+            byName.add(entry);
+        } else {
+            byTotal.remove(entry);
+        }
+        entry.quantity = quantity;
+        entry.unitPrice = unitPrice;
+        entry.lineTotal = unitPrice * quantity;
+        byTotal.add(entry);
+    }
+
+    void remove(Product product) {
+        Entry entry = entries.remove(product);
+        if (entry != null) {
+            byTotal.remove(entry);
+            byName.remove(entry);
+        }
+    }
+
+    // The n lines with the highest totals, highest first
+    List<CartLine> top(int n) {
+        List<CartLine> lines = new ArrayList<>(Math.min(n, byTotal.size()));
+        Iterator<Entry> iterator = byTotal.iterator();
+        while (lines.size() < n && iterator.hasNext()) {
+            lines.add(iterator.next().toLine());
+        }
+        return lines;
+    }
+
+    List<CartLine> byTotal() {
+        return toLines(byTotal);
+    }
+
+    List<CartLine> byName() {
+        return toLines(byName);
+    }
+
+    private static List<CartLine> toLines(Collection<Entry> ordered) {
+        List<CartLine> lines = new ArrayList<>(ordered.size());
+        for (Entry entry : ordered) {
+            lines.add(entry.toLine());
+        }
+        return lines;
+    }
+
+    private static final class Entry {
+        private final Product product;
+        private final long sequence;
+        private int quantity;
+        private double unitPrice;
+        private double lineTotal;
+
+        private Entry(Product product, long sequence) {
+            this.product = product;
+            this.sequence = sequence;
+        }
+
+        private CartLine toLine() {
+            return new CartLine(product, quantity, unitPrice);
+        }
+    }
+}
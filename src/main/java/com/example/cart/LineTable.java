@@ -0,0 +1,215 @@
+package com.example.cart;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Cart lines in insertion order: products and quantities live in parallel arrays indexed by slot,
+// and a hash index maps each product to its slot. Removal leaves a tombstone (null product) in O(1);
+// the arrays are compacted once tombstones outnumber live lines. Iterate with
+// for (int i = 0; i < slotCount(); i++) and skip slots whose productAt(i) is null.
+// Each slot also carries the per-unit promotion discount resolved for its line, and catalog lines
+// (products with an id) can be found by id alone. Not thread-safe.
+final class LineTable {
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 16;
+
+    private final Map<Product, Integer> slots = new HashMap<>();
+    private final LongIntMap slotsById;
+    private Product[] products;
+    private int[] quantities;
+    private double[] promotions;
+    private int slotCount;
+    private int tombstones;
+
+    LineTable() {
+        this(8);
+    }
+
+    LineTable(int expectedSize) {
+        int capacity = Math.max(4, expectedSize);
+        slotsById = new LongIntMap();
+        products = new Product[capacity];
+        quantities = new int[capacity];
+        promotions = new double[capacity];
+    }
+
+    LineTable(LineTable other) {
+        this.slots.putAll(other.slots);
+        this.slotsById = new LongIntMap(other.slotsById);
+        this.products = other.products.clone();
+        this.quantities = other.quantities.clone();
+        this.promotions = other.promotions.clone();
+        this.slotCount = other.slotCount;
+        this.tombstones = other.tombstones;
+    }
+
+    int get(Product product, int missingValue) {
+        Integer slot = slots.get(product);
+        return slot != null ? quantities[slot] : missingValue;
+    }
+
+    // The product the line was stored under, which may differ from an equal product (same id,
+    // other name or price); null if there is no such line
+    Product storedProduct(Product product) {
+        Integer slot = slots.get(product);
+        return slot != null ? products[slot] : null;
+    }
+
+    // The line stored for a catalog id, or null if there is none
+    Product productWithId(long id) {
+        int slot = slotsById.get(id, -1);
+        return slot >= 0 ? products[slot] : null;
+    }
+
+    boolean containsKey(Product product) {
+        return slots.containsKey(product);
+    }
+
+    // Update the quantity in place, or append a new line (without promotion) at the end;
+    // returns true if the line is new
+    boolean put(Product product, int quantity) {
+        Integer slot = slots.get(product);
+        if (slot != null) {
+            quantities[slot] = quantity;
+            return false;
+        }
+
+        ensureCapacity(slotCount + 1);
+        products[slotCount] = product;
+        quantities[slotCount] = quantity;
+        promotions[slotCount] = 0.0;
+        slots.put(product, slotCount);
+        if (product.hasId()) {
+            slotsById.put(product.getId(), slotCount);
+        }
+        slotCount++;
+        return true;
+    }
+
+    boolean remove(Product product) {
+        Integer slot = slots.remove(product);
+        if (slot == null) {
+            return false;
+        }
+
+        if (products[slot].hasId()) {
+            slotsById.remove(products[slot].getId());
+        }
+        products[slot] = null;
+        quantities[slot] = 0;
+        promotions[slot] = 0.0;
+        if (slot == slotCount - 1) {
+            slotCount--;
+        } else {
+            tombstones++;
+        }
+        if (tombstones >= MIN_TOMBSTONES_TO_COMPACT && tombstones > slots.size()) {
+            compact();
+        }
+        return true;
+    }
+
+    int size() {
+        return slots.size();
+    }
+
+    boolean isEmpty() {
+        return slots.isEmpty();
+    }
+
+    void clear() {
+        slots.clear();
+        slotsById.clear();
+        Arrays.fill(products, 0, slotCount, null);
+        Arrays.fill(quantities, 0, slotCount, 0);
+        Arrays.fill(promotions, 0, slotCount, 0.0);
+        slotCount = 0;
+        tombstones = 0;
+    }
+
+    // Upper bound (exclusive) of the slots in use, tombstones included
+    int slotCount() {
+        return slotCount;
+    }
+
+    // The product in a slot, or null for a tombstone
+    Product productAt(int slot) {
+        return products[slot];
+    }
+
+    int quantityAt(int slot) {
+        return quantities[slot];
+    }
+
+    // Per-unit promotion discount of the line in a slot (0 for tombstones)
+    double promotionAt(int slot) {
+        return promotions[slot];
+    }
+
+    void setPromotionAt(int slot, double discountPerUnit) {
+        promotions[slot] = discountPerUnit;
+    }
+
+    void setPromotion(Product product, double discountPerUnit) {
+        Integer slot = slots.get(product);
+        if (slot != null) {
+            promotions[slot] = discountPerUnit;
+        }
+    }
+
+    // Copy of the live lines in insertion order
+    Map<Product, Integer> toMap() {
+        Map<Product, Integer> copy = new LinkedHashMap<>(capacityFor(slots.size()));
+        for (int i = 0; i < slotCount; i++) {
+            if (products[i] != null) {
+                copy.put(products[i], quantities[i]);
+            }
+        }
+        return copy;
+    }
+
+    void ensureCapacity(int required) {
+        if (required <= products.length) {
+            return;
+        }
+        if (tombstones > 0 && required - tombstones <= products.length) {
+            compact();
+            return;
+        }
+        int capacity = Math.max(required, products.length * 2);
+        products = Arrays.copyOf(products, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        promotions = Arrays.copyOf(promotions, capacity);
+    }
+
+    // Slide live lines down over the tombstones, keeping their order
+    private void compact() {
+        int target = 0;
+        for (int i = 0; i < slotCount; i++) {
+            Product product = products[i];
+            if (product == null) {
+                continue;
+            }
+            if (target != i) {
+                products[target] = product;
+                quantities[target] = quantities[i];
+                promotions[target] = promotions[i];
+                slots.put(product, target);
+                if (product.hasId()) {
+                    slotsById.put(product.getId(), target);
+                }
+            }
+            target++;
+        }
+        Arrays.fill(products, target, slotCount, null);
+        Arrays.fill(quantities, target, slotCount, 0);
+        Arrays.fill(promotions, target, slotCount, 0.0);
+        slotCount = target;
+        tombstones = 0;
+    }
+
+    private static int capacityFor(int size) {
+        return (int) (size / 0.75f) + 1;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.cart;
+
+// How Cart.mergeFrom resolves a product that is present in both carts
+public enum MergePolicy {
+    // Add the incoming quantity to the existing one
+    SUM,
+    // Keep the larger of the two quantities
+    MAX,
+    // The merged-in cart is the newer session, so its quantity replaces the existing one
+    PREFER_NEWER
+}
@@ -0,0 +1,144 @@
+package com.example.cart;
+
+import java.util.Objects;
+
+// A candidate promotion for the PromotionOptimizer: a percentage off, or a fixed amount off each unit,
+// on the lines of one SKU, one category, or every line.
+// On a line only the best non-stackable offer applies, while stackable offers add on top of it.
+// At most one offer of a group is used per cart (e.g. "one coupon per order").
+public final class Offer {
+    public enum Kind {
+        PERCENT,
+        AMOUNT_PER_UNIT
+    }
+
+    private final String name;
+    private final Kind kind;
+    private final double value;
+    private final String sku;
+    private final String category;
+    private final String group;
+    private final boolean stackable;
+
+    private Offer(String name, Kind kind, double value, String sku, String category, String group, boolean stackable) {
+        this.name = name;
+        this.kind = kind;
+        this.value = value;
+        this.sku = sku;
+        this.category = category;
+        this.group = group;
+        this.stackable = stackable;
+    }
+
+    // Percentage (0-100) off every line, until narrowed with forSku or forCategory
+    public static Offer percentOff(String name, double percentage) {
+        validateName(name);
+        if (percentage < 0 || percentage > 100 || Double.isNaN(percentage)) {
+            throw new IllegalArgumentException("Percentage must be between 0 and 100");
+        }
+        return new Offer(name, Kind.PERCENT, percentage, null, null, null, false);
+    }
+
+    // Fixed amount off each unit (never more than the unit price) of every line
+    public static Offer amountOffPerUnit(String name, double amount) {
+        validateName(name);
+        if (amount < 0 || Double.isNaN(amount)) {
+            throw new IllegalArgumentException("Amount cannot be negative");
+        }
+        return new Offer(name, Kind.AMOUNT_PER_UNIT, amount, null, null, null, false);
+    }
+
+    public Offer forSku(String sku) {
+        validateName(sku);
+        return new Offer(name, kind, value, sku, category, group, stackable);
+    }
+
+    public Offer forCategory(String category) {
+        validateName(category);
+        return new Offer(name, kind, value, sku, category, group, stackable);
+    }
+
+    public Offer inGroup(String group) {
+        validateName(group);
+        return new Offer(name, kind, value, sku, category, group, stackable);
+    }
+
+    public Offer stacking() {
+        return new Offer(name, kind, value, sku, category, group, true);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    // SKU the offer is limited to, or null
+    public String getSku() {
+        return sku;
+    }
+
+    // Category the offer is limited to, or null
+    public String getCategory() {
+        return category;
+    }
+
+    // Mutually exclusive group, or null if the offer can always be used
+    public String getGroup() {
+        return group;
+    }
+
+    public boolean isStackable() {
+        return stackable;
+    }
+
+    public boolean appliesTo(String lineSku, String lineCategory) {
+        return (sku == null || sku.equals(lineSku)) && (category == null || category.equals(lineCategory));
+    }
+
+    // Discount this offer alone gives on a line
+    public double discountFor(double unitPrice, int quantity) {
+        if (kind == Kind.PERCENT) {
+            return unitPrice * quantity * (value / 100.0);
+        }
+        return Math.min(value, unitPrice) * quantity;
+    }
+
+    private static void validateName(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Offer names cannot be null or empty");
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Offer offer = (Offer) o;
+        return Double.compare(offer.value, value) == 0 &&
+                stackable == offer.stackable &&
+                kind == offer.kind &&
+                name.equals(offer.name) &&
+                Objects.equals(sku, offer.sku) &&
+                Objects.equals(category, offer.category) &&
+                Objects.equals(group, offer.group);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, kind, value, sku, category, group, stackable);
+    }
+
+    @Override
+    public String toString() {
+        String amount = kind == Kind.PERCENT ? String.format("%.1f%%", value) : String.format("$%.2f/unit", value);
+        return name + " (" + amount + (sku != null ? " on " + sku : "") + (category != null ? " in " + category : "")
+            + (group != null ? ", group " + group : "") + (stackable ? ", stackable" : "") + ")";
+    }
+}
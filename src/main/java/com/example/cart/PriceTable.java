@@ -0,0 +1,78 @@
+package com.example.cart;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Versioned catalog prices keyed by SKU (the product name), shared by many carts.
+// Every change bumps the version and is remembered in a bounded change log, so a cart
+// that fell behind can reprice only the SKUs that changed instead of every line.
+public class PriceTable {
+    public static final int DEFAULT_HISTORY_SIZE = 4096;
+
+    private final Map<String, Double> prices;
+    private final String[] changeLog;
+    private volatile long version;
+
+    public PriceTable() {
+        this(DEFAULT_HISTORY_SIZE);
+    }
+
+    public PriceTable(int historySize) {
+        if (historySize <= 0) {
+            throw new IllegalArgumentException("History size must be positive");
+        }
+        this.prices = new ConcurrentHashMap<>();
+        this.changeLog = new String[historySize];
+    }
+
+    public synchronized void setPrice(String sku, double price) {
+        if (sku == null || sku.isEmpty()) {
+            throw new IllegalArgumentException("SKU cannot be null or empty");
+        }
+        if (price < 0) {
+            throw new IllegalArgumentException("Price cannot be negative");
+        }
+        prices.put(sku, price);
+        recordChange(sku);
+    }
+
+    // Remove the catalog price so carts fall back to the price stored on the Product
+    public synchronized boolean removePrice(String sku) {
+        if (sku == null || prices.remove(sku) == null) {
+            return false;
+        }
+        recordChange(sku);
+        return true;
+    }
+
+    public boolean hasPrice(String sku) {
+        return sku != null && prices.containsKey(sku);
+    }
+
+    // Current price for a SKU, or NaN when the table has none
+    public double getPrice(String sku) {
+        Double price = sku == null ? null : prices.get(sku);
+        return price == null ? Double.NaN : price;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Add the SKUs changed after sinceVersion to changed and return the version they bring the caller to,
+    // or -1 if the change log no longer reaches back that far and the caller has to reprice everything
+    synchronized long changesSince(long sinceVersion, Collection<String> changed) {
+        if (version - sinceVersion > changeLog.length || sinceVersion > version) {
+            return -1;
+        }
+        for (long v = sinceVersion + 1; v <= version; v++) {
+            changed.add(changeLog[(int) ((v - 1) % changeLog.length)]);
+        }
+        return version;
+    }
+
+    private void recordChange(String sku) {
+        changeLog[(int) (version % changeLog.length)] = sku;
+        version++;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.cart;
+
+// One cart line as seen by the pricing stages during Cart.checkout.
+// The same instance is refilled for every line, so stages must not keep a reference to it.
+public final class PricedLine {
+    private Product product;
+    private int quantity;
+    private double unitPrice;
+    private double discount;
+    private final double[] stageAmounts;
+
+    PricedLine(int stageCount) {
+        this.stageAmounts = new double[stageCount];
+    }
+
+    void reset(Product product, int quantity, double unitPrice, double discount) {
+        this.product = product;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+        this.discount = discount;
+    }
+
+    void setStageAmount(int stage, double amount) {
+        stageAmounts[stage] = amount;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public double getGrossAmount() {
+        return unitPrice * quantity;
+    }
+
+    // This line's share of the percentage discount plus its promotion discount
+    public double getDiscount() {
+        return discount;
+    }
+
+    // Gross amount after discounts, never below zero
+    public double getNetAmount() {
+        return Math.max(0, getGrossAmount() - discount);
+    }
+
+    // What an earlier stage (by position in the checkout) charged on this line
+    public double getStageAmount(int stage) {
+        return stageAmounts[stage];
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.cart;
+
+// One step of checkout pricing after discounts (tax, shipping, fees, ...).
+// Cart.checkout visits every line once and hands it to all stages in order, so a stage can read
+// what earlier stages charged on the same line; order-level amounts are added after the last line.
+public interface PricingStage {
+
+    // Name the stage's amount is reported under in the Checkout; unique within one checkout
+    String getName();
+
+    // Amount this stage charges for one line (negative for a credit)
+    default double lineAmount(PricedLine line) {
+        return 0.0;
+    }
+
+    // Amount charged once per order, given the discounted merchandise total and the
+    // running total including every earlier stage
+    default double orderAmount(double merchandiseTotal, double runningTotal) {
+        return 0.0;
+    }
+}
@@ -1,28 +1,57 @@
 package com.example.cart;
 
+import java.util.Currency;
 import java.util.Objects;
 
 public class Product {
-    private String name;
-    private double price;
-    private String category;
+    // Id of products created without a catalog SKU
+    public static final long NO_ID = 0L;
 
-    public Product(String name, double price, String category) {
+    private final long id;
+    private final String name;
+    private final double price;
+    // Category is dictionary-encoded (see CategoryDictionary) instead of holding its own String
+    private final int categoryCode;
+    // Currency of the price; null means the price is in whatever currency the cart uses
+    private final Currency currency;
+
+    public Product(long id, String name, double price, String category, Currency currency) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Product id cannot be negative");
+        }
         if (name == null || name.isEmpty()) {
             throw new IllegalArgumentException("Product name cannot be null or empty");
         }
         if (price < 0) {
             throw new IllegalArgumentException("Product price cannot be negative");
         }
+        this.id = id;
         this.name = name;
         this.price = price;
-        this.category = category;
+        this.categoryCode = CategoryDictionary.encode(category);
+        this.currency = currency;
+    }
+
+    public Product(long id, String name, double price, String category) {
+        this(id, name, price, category, null);
+    }
+
+    public Product(String name, double price, String category) {
+        this(NO_ID, name, price, category);
     }
 
     public Product(String name, double price) {
         this(name, price, "General");
     }
 
+    public long getId() {
+        return id;
+    }
+
+    public boolean hasId() {
+        return id != NO_ID;
+    }
+
     public String getName() {
         return name;
     }
@@ -32,7 +61,15 @@ public class Product {
     }
 
     public String getCategory() {
-        return category;
+        return CategoryDictionary.decode(categoryCode);
+    }
+
+    public int getCategoryCode() {
+        return categoryCode;
+    }
+
+    public Currency getCurrency() {
+        return currency;
     }
 
     @Override
@@ -40,18 +77,28 @@ public class Product {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Product product = (Product) o;
-        return Double.compare(product.price, price) == 0 &&
+        // Catalog products are identified by their SKU alone
+        if (id != NO_ID || product.id != NO_ID) {
+            return id == product.id;
+        }
+        return categoryCode == product.categoryCode &&
+                Double.compare(product.price, price) == 0 &&
                 Objects.equals(name, product.name) &&
-                Objects.equals(category, product.category);
+                Objects.equals(currency, product.currency);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, price, category);
+        if (id != NO_ID) {
+            return LongIntMap.mix(id);
+        }
+        int result = name.hashCode();
+        result = 31 * result + Double.hashCode(price);
+        return 31 * result + categoryCode;
     }
 
     @Override
     public String toString() {
-        return String.format("%s ($%.2f) [%s]", name, price, category);
+        return String.format("%s ($%.2f) [%s]", name, price, getCategory());
     }
 }
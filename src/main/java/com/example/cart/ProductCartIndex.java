@@ -0,0 +1,74 @@
+package com.example.cart;
+
+import java.util.*;
+
+// Reverse index from SKU (product name) to the sessions whose cart holds it.
+// Each session gets a small int ordinal (reused after removal) and every SKU keeps a
+// BitSet posting list of ordinals, so looking up the affected carts never scans the store.
+public class ProductCartIndex {
+    private final Map<String, BitSet> postings;
+    private final List<String> sessionsByOrdinal;
+    private final BitSet freeOrdinals;
+
+    public ProductCartIndex() {
+        this.postings = new HashMap<>();
+        this.sessionsByOrdinal = new ArrayList<>();
+        this.freeOrdinals = new BitSet();
+    }
+
+    // Assign an ordinal to a session; the caller hands it back to release()
+    public synchronized int register(String sessionId) {
+        int ordinal = freeOrdinals.nextSetBit(0);
+        if (ordinal < 0) {
+            ordinal = sessionsByOrdinal.size();
+            sessionsByOrdinal.add(sessionId);
+        } else {
+            freeOrdinals.clear(ordinal);
+            sessionsByOrdinal.set(ordinal, sessionId);
+        }
+        return ordinal;
+    }
+
+    // Release an ordinal once the session's SKUs have been removed from the index
+    public synchronized void release(int ordinal) {
+        sessionsByOrdinal.set(ordinal, null);
+        freeOrdinals.set(ordinal);
+    }
+
+    public synchronized void add(String sku, int ordinal) {
+        postings.computeIfAbsent(sku, key -> new BitSet()).set(ordinal);
+    }
+
+    public synchronized void remove(String sku, int ordinal) {
+        BitSet posting = postings.get(sku);
+        if (posting != null) {
+            posting.clear(ordinal);
+            if (posting.isEmpty()) {
+                postings.remove(sku);
+            }
+        }
+    }
+
+    // Sessions whose cart currently holds at least one line of the SKU
+    public synchronized List<String> getSessions(String sku) {
+        BitSet posting = sku == null ? null : postings.get(sku);
+        if (posting == null) {
+            return Collections.emptyList();
+        }
+
+        List<String> sessions = new ArrayList<>(posting.cardinality());
+        for (int ordinal = posting.nextSetBit(0); ordinal >= 0; ordinal = posting.nextSetBit(ordinal + 1)) {
+            sessions.add(sessionsByOrdinal.get(ordinal));
+        }
+        return sessions;
+    }
+
+    public synchronized int countSessions(String sku) {
+        BitSet posting = sku == null ? null : postings.get(sku);
+        return posting == null ? 0 : posting.cardinality();
+    }
+
+    public synchronized int getSkuCount() {
+        return postings.size();
+    }
+}
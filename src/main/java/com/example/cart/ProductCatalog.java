@@ -0,0 +1,72 @@
+package com.example.cart;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Products addressable by numeric id (SKU), so callers that already hold SKUs can use
+// the id-keyed Cart methods without building Product objects themselves.
+// Lookups far outnumber registrations and come from every cart, so they share a read lock.
+public class ProductCatalog {
+    private final LongIntMap slotsById;
+    private final List<Product> products;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ProductCatalog() {
+        this.slotsById = new LongIntMap();
+        this.products = new ArrayList<>();
+    }
+
+    // Add a product, or replace the one registered under the same id
+    public void register(Product product) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        if (!product.hasId()) {
+            throw new IllegalArgumentException("Product must have an id to be registered");
+        }
+
+        lock.writeLock().lock();
+        try {
+            int slot = slotsById.get(product.getId(), -1);
+            if (slot >= 0) {
+                products.set(slot, product);
+            } else {
+                slotsById.put(product.getId(), products.size());
+                products.add(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Product registered under the id, or null if unknown
+    public Product get(long id) {
+        lock.readLock().lock();
+        try {
+            int slot = slotsById.get(id, -1);
+            return slot >= 0 ? products.get(slot) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(long id) {
+        lock.readLock().lock();
+        try {
+            return slotsById.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return products.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
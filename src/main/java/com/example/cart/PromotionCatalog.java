@@ -0,0 +1,89 @@
+package com.example.cart;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+// Site-wide promotions (per-unit discount by product name) shared by many carts.
+// Readers always see one immutable Snapshot; every update copies the map, bumps the version and
+// publishes the new snapshot with a single volatile write, so a change never appears half-applied.
+// Carts compare snapshots on their next price read and re-resolve only their own lines.
+public class PromotionCatalog {
+    private volatile Snapshot current = new Snapshot(0, Collections.emptyMap());
+
+    // Replace every promotion at once
+    public synchronized void publish(Map<String, Double> promotions) {
+        if (promotions == null) {
+            throw new IllegalArgumentException("Promotions cannot be null");
+        }
+        Map<String, Double> copy = new HashMap<>(promotions.size() * 2);
+        for (Map.Entry<String, Double> promotion : promotions.entrySet()) {
+            validate(promotion.getKey(), promotion.getValue());
+            copy.put(promotion.getKey(), promotion.getValue());
+        }
+        current = new Snapshot(current.version + 1, copy);
+    }
+
+    public synchronized void setPromotion(String productName, double discountAmount) {
+        validate(productName, discountAmount);
+        Map<String, Double> copy = new HashMap<>(current.promotions);
+        copy.put(productName, discountAmount);
+        current = new Snapshot(current.version + 1, copy);
+    }
+
+    public synchronized boolean removePromotion(String productName) {
+        if (productName == null || !current.promotions.containsKey(productName)) {
+            return false;
+        }
+        Map<String, Double> copy = new HashMap<>(current.promotions);
+        copy.remove(productName);
+        current = new Snapshot(current.version + 1, copy);
+        return true;
+    }
+
+    public Snapshot snapshot() {
+        return current;
+    }
+
+    public long getVersion() {
+        return current.version;
+    }
+
+    private static void validate(String productName, Double discountAmount) {
+        if (productName == null || productName.isEmpty()) {
+            throw new IllegalArgumentException("Product name cannot be null or empty");
+        }
+        if (discountAmount == null || discountAmount < 0) {
+            throw new IllegalArgumentException("Discount amount cannot be negative");
+        }
+    }
+
+    // One published version of the catalog; never changes after construction
+    public static final class Snapshot {
+        private final long version;
+        private final Map<String, Double> promotions;
+
+        private Snapshot(long version, Map<String, Double> promotions) {
+            this.version = version;
+            this.promotions = Collections.unmodifiableMap(promotions);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        // Per-unit discount for a product name, 0 if the catalog has none
+        public double getDiscount(String productName) {
+            Double discount = promotions.get(productName);
+            return discount == null ? 0.0 : discount;
+        }
+
+        public boolean isEmpty() {
+            return promotions.isEmpty();
+        }
+
+        public Map<String, Double> asMap() {
+            return promotions;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.cart;
+
+import java.util.*;
+
+// Picks the combination of competing offers that gives a cart the largest discount.
+// Offers without a group are always used; for each group exactly one offer is picked, by a
+// depth-first branch and bound over the groups. A branch is cut as soon as an upper bound on what
+// it can still reach is no better than the best plan found so far. The bound is per line: the
+// line's current discount with the best non-stackable and stackable amounts that any remaining
+// group could still add, capped at the line's gross amount. Groups and offers are tried best first,
+// so the first plan found is the greedy one and most branches are cut right away; typical carts
+// visit about one node per offer instead of one per combination.
+public class PromotionOptimizer {
+    public static final long DEFAULT_NODE_BUDGET = 1_000_000;
+
+    private static final double EPSILON = 1e-9;
+
+    private final long nodeBudget;
+
+    public PromotionOptimizer() {
+        this(DEFAULT_NODE_BUDGET);
+    }
+
+    // Search at most nodeBudget partial combinations; after that the best plan so far is returned
+    public PromotionOptimizer(long nodeBudget) {
+        if (nodeBudget <= 0) {
+            throw new IllegalArgumentException("Node budget must be positive");
+        }
+        this.nodeBudget = nodeBudget;
+    }
+
+    public PromotionPlan optimize(Cart cart, Collection<Offer> offers) {
+        if (cart == null) {
+            throw new IllegalArgumentException("Cart cannot be null");
+        }
+        if (offers == null) {
+            throw new IllegalArgumentException("Offers cannot be null");
+        }
+        for (Offer offer : offers) {
+            if (offer == null) {
+                throw new IllegalArgumentException("Offers cannot be null");
+            }
+        }
+
+        List<Line> lines = new ArrayList<>();
+        cart.forEachLine((name, unitPrice, category, quantity, lineTotal) ->
+            lines.add(new Line(name, category, unitPrice, quantity)));
+        return new Search(lines, offers, nodeBudget).run();
+    }
+
+    // One optimization run; the line state arrays are updated in place and undone on backtracking
+    private static final class Search {
+        private final List<Line> lines;
+        private final double[] gross;
+        private final long nodeBudget;
+
+        private final List<Offer> baseOffers = new ArrayList<>();
+        // Offers of each group, best standalone discount first; groups ordered the same way
+        private final List<OfferLines[]> groups = new ArrayList<>();
+        // Largest non-stackable / stackable amount groups d.. could still add to each line
+        private double[][] remainingBest;
+        private double[][] remainingStack;
+
+        private final double[] best;
+        private final double[] stack;
+        private double value;
+
+        private final int[] choice;
+        private int[] bestChoice;
+        private double bestValue = -1.0;
+        private long nodes;
+        private boolean exhausted;
+
+        Search(List<Line> lines, Collection<Offer> offers, long nodeBudget) {
+            this.lines = lines;
+            this.nodeBudget = nodeBudget;
+            int lineCount = lines.size();
+            gross = new double[lineCount];
+            for (int l = 0; l < lineCount; l++) {
+                gross[l] = lines.get(l).unitPrice * lines.get(l).quantity;
+            }
+            best = new double[lineCount];
+            stack = new double[lineCount];
+
+            Map<String, List<OfferLines>> byGroup = new LinkedHashMap<>();
+            for (Offer offer : offers) {
+                OfferLines matched = new OfferLines(offer, lines, gross);
+                if (matched.lines.length == 0) {
+                    continue;
+                }
+                if (offer.getGroup() == null) {
+                    baseOffers.add(offer);
+                    apply(matched);
+                } else {
+                    byGroup.computeIfAbsent(offer.getGroup(), g -> new ArrayList<>()).add(matched);
+                }
+            }
+            for (List<OfferLines> group : byGroup.values()) {
+                group.sort((a, b) -> Double.compare(b.standalone, a.standalone));
+                groups.add(group.toArray(new OfferLines[0]));
+            }
+            groups.sort((a, b) -> Double.compare(b[0].standalone, a[0].standalone));
+            choice = new int[groups.size()];
+            computeRemaining(lineCount);
+        }
+
+        PromotionPlan run() {
+            search(0);
+
+            // Replay the winning plan from the base state to report its offers and line discounts
+            List<Offer> chosen = new ArrayList<>(baseOffers);
+            for (int d = 0; d < groups.size(); d++) {
+                OfferLines picked = groups.get(d)[bestChoice[d]];
+                chosen.add(picked.offer);
+                apply(picked);
+            }
+            Map<String, Double> lineDiscounts = new LinkedHashMap<>();
+            double total = 0.0;
+            for (int l = 0; l < gross.length; l++) {
+                double discount = lineValue(l);
+                if (discount > 0) {
+                    lineDiscounts.merge(lines.get(l).sku, discount, Double::sum);
+                    total += discount;
+                }
+            }
+            return new PromotionPlan(chosen, lineDiscounts, total, !exhausted, nodes);
+        }
+
+        private void search(int depth) {
+            if (depth == groups.size()) {
+                if (value > bestValue + EPSILON) {
+                    bestValue = value;
+                    bestChoice = choice.clone();
+                }
+                return;
+            }
+            if (bestChoice != null && bound(depth) <= bestValue + EPSILON) {
+                return;
+            }
+
+            OfferLines[] group = groups.get(depth);
+            for (int i = 0; i < group.length && !exhausted; i++) {
+                if (++nodes >= nodeBudget && bestChoice != null) {
+                    exhausted = true;
+                }
+                double before = value;
+                choice[depth] = i;
+                apply(group[i]);
+                search(depth + 1);
+                undo(group[i], before);
+            }
+        }
+
+        private double bound(int depth) {
+            double[] addBest = remainingBest[depth];
+            double[] addStack = remainingStack[depth];
+            double sum = 0.0;
+            for (int l = 0; l < gross.length; l++) {
+                sum += Math.min(gross[l], Math.max(best[l], addBest[l]) + stack[l] + addStack[l]);
+            }
+            return sum;
+        }
+
+        private double lineValue(int l) {
+            return Math.min(gross[l], best[l] + stack[l]);
+        }
+
+        private void apply(OfferLines offer) {
+            for (int i = 0; i < offer.lines.length; i++) {
+                int l = offer.lines[i];
+                double old = lineValue(l);
+                if (offer.stackable) {
+                    offer.saved[i] = stack[l];
+                    stack[l] += offer.amounts[i];
+                } else {
+                    offer.saved[i] = best[l];
+                    best[l] = Math.max(best[l], offer.amounts[i]);
+                }
+                value += lineValue(l) - old;
+            }
+        }
+
+        private void undo(OfferLines offer, double previousValue) {
+            double[] target = offer.stackable ? stack : best;
+            for (int i = 0; i < offer.lines.length; i++) {
+                target[offer.lines[i]] = offer.saved[i];
+            }
+            value = previousValue;
+        }
+
+        private void computeRemaining(int lineCount) {
+            int depthCount = groups.size();
+            remainingBest = new double[depthCount + 1][lineCount];
+            remainingStack = new double[depthCount + 1][lineCount];
+            for (int d = depthCount - 1; d >= 0; d--) {
+                double[] groupBest = remainingBest[d];
+                double[] groupStack = new double[lineCount];
+                System.arraycopy(remainingBest[d + 1], 0, groupBest, 0, lineCount);
+                for (OfferLines offer : groups.get(d)) {
+                    for (int i = 0; i < offer.lines.length; i++) {
+                        int l = offer.lines[i];
+                        if (offer.stackable) {
+                            groupStack[l] = Math.max(groupStack[l], offer.amounts[i]);
+                        } else {
+                            groupBest[l] = Math.max(groupBest[l], offer.amounts[i]);
+                        }
+                    }
+                }
+                // Only one offer per group is used, so a group adds at most its largest stackable amount
+                for (int l = 0; l < lineCount; l++) {
+                    remainingStack[d][l] = remainingStack[d + 1][l] + groupStack[l];
+                }
+            }
+        }
+    }
+
+    // An offer with the lines it discounts and the amount it gives each of them on its own
+    private static final class OfferLines {
+        final Offer offer;
+        final boolean stackable;
+        final int[] lines;
+        final double[] amounts;
+        // Line state overwritten by apply, restored by undo
+        final double[] saved;
+        final double standalone;
+
+        OfferLines(Offer offer, List<Line> lines, double[] gross) {
+            this.offer = offer;
+            this.stackable = offer.isStackable();
+            int[] matched = new int[lines.size()];
+            double[] discounts = new double[lines.size()];
+            int count = 0;
+            double total = 0.0;
+            for (int l = 0; l < lines.size(); l++) {
+                Line line = lines.get(l);
+                if (!offer.appliesTo(line.sku, line.category)) {
+                    continue;
+                }
+                double amount = offer.discountFor(line.unitPrice, line.quantity);
+                if (amount > 0) {
+                    matched[count] = l;
+                    discounts[count] = amount;
+                    count++;
+                    total += Math.min(gross[l], amount);
+                }
+            }
+            this.lines = Arrays.copyOf(matched, count);
+            this.amounts = Arrays.copyOf(discounts, count);
+            this.saved = new double[count];
+            this.standalone = total;
+        }
+    }
+
+    private static final class Line {
+        final String sku;
+        final String category;
+        final double unitPrice;
+        final int quantity;
+
+        Line(String sku, String category, double unitPrice, int quantity) {
+            this.sku = sku;
+            this.category = category;
+            this.unitPrice = unitPrice;
+            this.quantity = quantity;
+        }
+    }
+}
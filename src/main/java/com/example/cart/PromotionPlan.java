@@ -0,0 +1,56 @@
+package com.example.cart;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Offers picked by the PromotionOptimizer for one cart, and the discount they give together
+public final class PromotionPlan {
+    private final List<Offer> offers;
+    private final Map<String, Double> lineDiscounts;
+    private final double discount;
+    private final boolean optimal;
+    private final long nodesExplored;
+
+    PromotionPlan(List<Offer> offers, Map<String, Double> lineDiscounts, double discount, boolean optimal,
+                  long nodesExplored) {
+        this.offers = Collections.unmodifiableList(offers);
+        this.lineDiscounts = Collections.unmodifiableMap(lineDiscounts);
+        this.discount = discount;
+        this.optimal = optimal;
+        this.nodesExplored = nodesExplored;
+    }
+
+    // Offers in use: every ungrouped offer that applies to the cart plus the one picked per group
+    public List<Offer> getOffers() {
+        return offers;
+    }
+
+    public double getDiscount() {
+        return discount;
+    }
+
+    // Discount per SKU (product name), for lines that get one
+    public Map<String, Double> getLineDiscounts() {
+        return lineDiscounts;
+    }
+
+    public double getDiscountFor(String sku) {
+        return lineDiscounts.getOrDefault(sku, 0.0);
+    }
+
+    // False if the optimizer ran out of its node budget; the plan is then the best one it found
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    // Combinations the search visited, for tuning and benchmarks
+    public long getNodesExplored() {
+        return nodesExplored;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PromotionPlan{discount=%.2f, offers=%s%s}", discount, offers, optimal ? "" : ", not optimal");
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.cart;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+// Activates and expires time-bounded promotions across registered carts.
+// Start and end events sit in a hashed timing wheel: one bucket per tick, wheelSize buckets,
+// and events further out than one turn of the wheel wait out the remaining rounds in their bucket.
+// Nothing runs on its own: call advance() (e.g. from a scheduled executor) and it fires every event
+// due by the clock's current time, so tests drive time with their own Clock.
+// Events fire no earlier than their instant and at most one tick late.
+public class PromotionScheduler {
+    private static final Duration DEFAULT_TICK = Duration.ofSeconds(1);
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final Clock clock;
+    private final long tickMillis;
+    private final List<Timer>[] wheel;
+    private final int mask;
+    // Last tick whose bucket was processed
+    private long currentTick;
+
+    private final Set<Cart> carts = new LinkedHashSet<>();
+    private final Set<ScheduledPromotion> active = new LinkedHashSet<>();
+
+    public PromotionScheduler(Clock clock) {
+        this(clock, DEFAULT_TICK, DEFAULT_WHEEL_SIZE);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public PromotionScheduler(Clock clock, Duration tick, int wheelSize) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        if (tick == null || tick.toMillis() <= 0) {
+            throw new IllegalArgumentException("Tick must be at least one millisecond");
+        }
+        if (wheelSize <= 0) {
+            throw new IllegalArgumentException("Wheel size must be positive");
+        }
+        this.clock = clock;
+        this.tickMillis = tick.toMillis();
+        int buckets = Integer.highestOneBit(wheelSize - 1) << 1;
+        buckets = Math.max(1, buckets);
+        this.wheel = new List[buckets];
+        for (int i = 0; i < buckets; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+        this.mask = buckets - 1;
+        this.currentTick = Math.floorDiv(clock.millis(), tickMillis);
+    }
+
+    // Register a cart; promotions that are already running apply to it immediately
+    public synchronized void register(Cart cart) {
+        if (cart == null) {
+            throw new IllegalArgumentException("Cart cannot be null");
+        }
+        if (carts.add(cart)) {
+            for (ScheduledPromotion promotion : active) {
+                cart.addPromotion(promotion.productName, promotion.discountAmount);
+            }
+        }
+    }
+
+    // Stop scheduling for a cart; promotions already applied to it stay until removed by hand
+    public synchronized boolean unregister(Cart cart) {
+        return carts.remove(cart);
+    }
+
+    // Run a promotion from start (inclusive) to end (exclusive); a start already in the past
+    // activates it at the latest on the next advance()
+    public synchronized ScheduledPromotion schedule(String productName, double discountAmount, Instant start, Instant end) {
+        if (productName == null || productName.isEmpty()) {
+            throw new IllegalArgumentException("Product name cannot be null or empty");
+        }
+        if (discountAmount < 0) {
+            throw new IllegalArgumentException("Discount amount cannot be negative");
+        }
+        if (start == null || end == null || !start.isBefore(end)) {
+            throw new IllegalArgumentException("Promotion must start before it ends");
+        }
+        if (!end.isAfter(clock.instant())) {
+            throw new IllegalArgumentException("Promotion has already ended");
+        }
+
+        ScheduledPromotion promotion = new ScheduledPromotion(productName, discountAmount, start, end);
+        addTimer(new Timer(promotion, true, deadlineTick(start)));
+        addTimer(new Timer(promotion, false, deadlineTick(end)));
+        return promotion;
+    }
+
+    // Withdraw a promotion; if it is running it is removed from every registered cart now
+    public synchronized boolean cancel(ScheduledPromotion promotion) {
+        if (promotion == null || promotion.state == State.ENDED) {
+            return false;
+        }
+        if (promotion.state == State.ACTIVE) {
+            deactivate(promotion);
+        }
+        promotion.state = State.ENDED;
+        return true;
+    }
+
+    // Fire every event due by the clock's current time; returns the number of events fired
+    public synchronized int advance() {
+        long nowTick = Math.floorDiv(clock.millis(), tickMillis);
+        int fired = 0;
+        while (currentTick < nowTick) {
+            currentTick++;
+            fired += fireBucket(wheel[(int) (currentTick & mask)]);
+        }
+        return fired;
+    }
+
+    public synchronized Set<ScheduledPromotion> getActivePromotions() {
+        return new LinkedHashSet<>(active);
+    }
+
+    public synchronized int getRegisteredCartCount() {
+        return carts.size();
+    }
+
+    private int fireBucket(List<Timer> bucket) {
+        int fired = 0;
+        for (Iterator<Timer> iterator = bucket.iterator(); iterator.hasNext(); ) {
+            Timer timer = iterator.next();
+            if (timer.promotion.state == State.ENDED) {
+                iterator.remove();
+            } else if (timer.rounds > 0) {
+                timer.rounds--;
+            } else {
+                iterator.remove();
+                fire(timer);
+                fired++;
+            }
+        }
+        return fired;
+    }
+
+    private void fire(Timer timer) {
+        ScheduledPromotion promotion = timer.promotion;
+        if (timer.activation) {
+            if (promotion.state == State.PENDING) {
+                promotion.state = State.ACTIVE;
+                active.add(promotion);
+                for (Cart cart : carts) {
+                    cart.addPromotion(promotion.productName, promotion.discountAmount);
+                }
+            }
+        } else {
+            if (promotion.state == State.ACTIVE) {
+                deactivate(promotion);
+            }
+            promotion.state = State.ENDED;
+        }
+    }
+
+    // Only removes the promotion where it still has this amount, so a newer one on the same name survives
+    private void deactivate(ScheduledPromotion promotion) {
+        active.remove(promotion);
+        for (Cart cart : carts) {
+            cart.removePromotionIfAmount(promotion.productName, promotion.discountAmount);
+        }
+    }
+
+    private void addTimer(Timer timer) {
+        if (timer.deadlineTick <= currentTick) {
+            fire(timer);
+            return;
+        }
+        long ticksAhead = timer.deadlineTick - currentTick;
+        timer.rounds = (ticksAhead - 1) / wheel.length;
+        wheel[(int) (timer.deadlineTick & mask)].add(timer);
+    }
+
+    // Round up so an event never fires before its instant
+    private long deadlineTick(Instant instant) {
+        return -Math.floorDiv(-instant.toEpochMilli(), tickMillis);
+    }
+
+    private enum State {
+        PENDING,
+        ACTIVE,
+        ENDED
+    }
+
+    // Handle for a scheduled promotion, used to cancel it or check whether it is running
+    public static final class ScheduledPromotion {
+        private final String productName;
+        private final double discountAmount;
+        private final Instant start;
+        private final Instant end;
+        private volatile State state = State.PENDING;
+
+        private ScheduledPromotion(String productName, double discountAmount, Instant start, Instant end) {
+            this.productName = productName;
+            this.discountAmount = discountAmount;
+            this.start = start;
+            this.end = end;
+        }
+
+        public String getProductName() {
+            return productName;
+        }
+
+        public double getDiscountAmount() {
+            return discountAmount;
+        }
+
+        public Instant getStart() {
+            return start;
+        }
+
+        public Instant getEnd() {
+            return end;
+        }
+
+        public boolean isActive() {
+            return state == State.ACTIVE;
+        }
+
+        public boolean isEnded() {
+            return state == State.ENDED;
+        }
+    }
+
+    private static final class Timer {
+        private final ScheduledPromotion promotion;
+        private final boolean activation;
+        private final long deadlineTick;
+        private long rounds;
+
+        private Timer(ScheduledPromotion promotion, boolean activation, long deadlineTick) {
+            this.promotion = promotion;
+            this.activation = activation;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.cart;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+// Collects stock hold changes from carts and sends them to an InventoryGateway in batches.
+// Deltas for the same product are summed (and dropped when they cancel out), so gateway traffic grows
+// with the number of distinct products touched, not with the number of cart mutations.
+// A batch goes out once it holds maxBatchSize products or its window has elapsed; the window is only
+// checked when a delta arrives, so call flushIfDue() periodically (or flush()) to drain quiet periods.
+public class ReservationBatcher {
+    private final InventoryGateway gateway;
+    private final Clock clock;
+    private final long windowMillis;
+    private final int maxBatchSize;
+
+    private Map<Product, Integer> pending = new HashMap<>();
+    private long windowStart;
+    private long deltasRecorded;
+    private long batchesSent;
+
+    public ReservationBatcher(InventoryGateway gateway, Clock clock, Duration window, int maxBatchSize) {
+        if (gateway == null || clock == null) {
+            throw new IllegalArgumentException("Gateway and clock cannot be null");
+        }
+        if (window == null || window.isNegative()) {
+            throw new IllegalArgumentException("Window cannot be negative");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.gateway = gateway;
+        this.clock = clock;
+        this.windowMillis = window.toMillis();
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public synchronized void record(Product product, int delta) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        if (delta == 0) {
+            return;
+        }
+
+        if (pending.isEmpty()) {
+            windowStart = clock.millis();
+        }
+        pending.merge(product, delta, (current, change) -> current + change == 0 ? null : current + change);
+        deltasRecorded++;
+        if (pending.size() >= maxBatchSize || windowElapsed()) {
+            flush();
+        }
+    }
+
+    public synchronized boolean flushIfDue() {
+        if (pending.isEmpty() || !windowElapsed()) {
+            return false;
+        }
+        flush();
+        return true;
+    }
+
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Product, Integer> batch = pending;
+        pending = new HashMap<>();
+        batchesSent++;
+        gateway.adjustHolds(Collections.unmodifiableMap(batch));
+    }
+
+    // Net delta waiting for a product in the current batch
+    public synchronized int getPending(Product product) {
+        return pending.getOrDefault(product, 0);
+    }
+
+    public synchronized long getDeltasRecorded() {
+        return deltasRecorded;
+    }
+
+    public synchronized long getBatchesSent() {
+        return batchesSent;
+    }
+
+    private boolean windowElapsed() {
+        return clock.millis() - windowStart >= windowMillis;
+    }
+}
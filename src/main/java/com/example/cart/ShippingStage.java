@@ -0,0 +1,33 @@
+package com.example.cart;
+
+// Flat shipping charge per order, waived once the discounted merchandise total reaches a threshold
+public class ShippingStage implements PricingStage {
+    public static final String NAME = "shipping";
+
+    private final double flatRate;
+    private final double freeShippingThreshold;
+
+    public ShippingStage(double flatRate, double freeShippingThreshold) {
+        if (flatRate < 0) {
+            throw new IllegalArgumentException("Shipping rate cannot be negative");
+        }
+        if (freeShippingThreshold < 0) {
+            throw new IllegalArgumentException("Free shipping threshold cannot be negative");
+        }
+        this.flatRate = flatRate;
+        this.freeShippingThreshold = freeShippingThreshold;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public double orderAmount(double merchandiseTotal, double runningTotal) {
+        if (merchandiseTotal == 0 || merchandiseTotal >= freeShippingThreshold) {
+            return 0.0;
+        }
+        return flatRate;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.cart;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Sales tax on each line's discounted amount, with the rate chosen by the product's category.
+// Rates are looked up once per category and then cached by category code, so the per-line cost
+// is an array read instead of a String hash lookup.
+public class TaxStage implements PricingStage {
+    public static final String NAME = "tax";
+
+    private final Map<String, Double> rates;
+    private final double defaultRate;
+    // Rate by category code + 1 (slot 0 is the null category); NaN until first resolved
+    private volatile double[] rateCache = newCache(16);
+
+    // Rates are fractions (0.08 for 8%); categories without a rate use defaultRate
+    public TaxStage(Map<String, Double> rates, double defaultRate) {
+        if (rates == null) {
+            throw new IllegalArgumentException("Rates cannot be null");
+        }
+        validateRate(defaultRate);
+        for (double rate : rates.values()) {
+            validateRate(rate);
+        }
+        this.rates = new HashMap<>(rates);
+        this.defaultRate = defaultRate;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public double lineAmount(PricedLine line) {
+        return line.getNetAmount() * rateFor(line.getProduct());
+    }
+
+    public double rateFor(Product product) {
+        int slot = product.getCategoryCode() + 1;
+        double[] cache = rateCache;
+        if (slot < cache.length) {
+            double rate = cache[slot];
+            if (!Double.isNaN(rate)) {
+                return rate;
+            }
+        }
+        return resolve(slot, product.getCategory());
+    }
+
+    private synchronized double resolve(int slot, String category) {
+        double[] cache = rateCache;
+        if (slot >= cache.length) {
+            double[] grown = newCache(Math.max(slot + 1, cache.length * 2));
+            System.arraycopy(cache, 0, grown, 0, cache.length);
+            cache = grown;
+        }
+        double rate = category == null ? defaultRate : rates.getOrDefault(category, defaultRate);
+        cache[slot] = rate;
+        rateCache = cache;
+        return rate;
+    }
+
+    private static double[] newCache(int size) {
+        double[] cache = new double[size];
+        Arrays.fill(cache, Double.NaN);
+        return cache;
+    }
+
+    private static void validateRate(double rate) {
+        if (rate < 0 || Double.isNaN(rate)) {
+            throw new IllegalArgumentException("Tax rate cannot be negative");
+        }
+    }
+}
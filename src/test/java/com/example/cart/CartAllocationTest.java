@@ -0,0 +1,136 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Allocation budgets per Cart operation, measured with the JVM's per-thread allocation counter.
+// Each operation is warmed up first so the JIT has compiled it, then the average over many calls
+// is checked against the budget; a regression that allocates on a hot path fails the build.
+@DisplayName("Cart Allocation Budget Tests")
+class CartAllocationTest {
+
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 10_000;
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    private Cart cart;
+    private Product mouse;
+
+    @BeforeAll
+    static void setUpAllocationCounter() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "allocation counter not available");
+        threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "allocation counter not supported");
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @BeforeEach
+    void setUp() {
+        cart = TestDataFactory.createCartWithPromotions();
+        mouse = TestDataFactory.createMouse();
+    }
+
+    // Average bytes allocated by one call of the operation on the current thread
+    private static double bytesPerOperation(Runnable operation) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            operation.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            operation.run();
+        }
+        long after = threads.getThreadAllocatedBytes(threadId);
+        return (double) (after - before) / MEASURED_ITERATIONS;
+    }
+
+    private static void assertBudget(String operation, double budgetBytes, Runnable body) {
+        double measured = bytesPerOperation(body);
+        assertTrue(measured <= budgetBytes,
+            String.format("%s allocated %.1f bytes/op, budget is %.1f", operation, measured, budgetBytes));
+    }
+
+    @Nested
+    @DisplayName("Read-Only Budget Tests")
+    class ReadOnlyBudgetTests {
+
+        @Test
+        @DisplayName("getTotal should not allocate on a warm cart")
+        void testGetTotal() {
+            assertBudget("getTotal", 1.0, cart::getTotal);
+        }
+
+        @Test
+        @DisplayName("getItemCount should not allocate")
+        void testGetItemCount() {
+            assertBudget("getItemCount", 1.0, cart::getItemCount);
+        }
+
+        @Test
+        @DisplayName("containsProduct(String) should not allocate")
+        void testContainsProductNamed() {
+            assertBudget("containsProduct", 1.0, () -> cart.containsProduct("Mouse"));
+        }
+
+        @Test
+        @DisplayName("Legacy getItems size and contains should not allocate")
+        void testGetItems() {
+            assertBudget("getItems().size", 1.0, () -> cart.getItems().size());
+            assertBudget("getItems().contains", 1.0, () -> cart.getItems().contains("Mouse"));
+        }
+
+        @Test
+        @DisplayName("getCartSummary should stay within its rendering budget")
+        void testGetCartSummary() {
+            // String.format dominates; about 7 KB for this three-line cart
+            assertBudget("getCartSummary", 10_240.0, cart::getCartSummary);
+        }
+    }
+
+    @Nested
+    @DisplayName("Mutation Budget Tests")
+    class MutationBudgetTests {
+
+        @Test
+        @DisplayName("addProduct on an existing line should not allocate")
+        void testAddExisting() {
+            assertBudget("addProduct", 1.0, () -> cart.addProduct(mouse, 1));
+        }
+
+        @Test
+        @DisplayName("updateQuantity should not allocate")
+        void testUpdateQuantity() {
+            int[] quantity = {1};
+            assertBudget("updateQuantity", 1.0, () -> cart.updateQuantity(mouse, quantity[0] = quantity[0] % 50 + 1));
+        }
+
+        @Test
+        @DisplayName("Repricing after a mutation should stay small")
+        void testMutateThenPrice() {
+            // One memoized Totals object per recomputation
+            int[] quantity = {1};
+            assertBudget("updateQuantity+getTotal", 64.0, () -> {
+                cart.updateQuantity(mouse, quantity[0] = quantity[0] % 50 + 1);
+                cart.getTotal();
+            });
+        }
+
+        @Test
+        @DisplayName("Forking and pricing the fork should not copy the lines")
+        void testForkThenPrice() {
+            // The fork's own locks, journal and views; the lines and memoized totals are shared
+            cart.getTotal();
+            assertBudget("fork+getTotal", 1024.0, () -> cart.fork().getTotal());
+        }
+    }
+}
@@ -153,6 +153,45 @@ class CartBackwardCompatibilityTest {
             assertEquals(1, items.size());
             assertEquals(1, items.stream().filter(item -> item.equals("Laptop")).count());
         }
+
+        @Test
+        @DisplayName("Should reflect later changes to the cart")
+        void testGetItemsIsLiveView() {
+            List<String> items = cart.getItems();
+            cart.addProduct("Laptop");
+            cart.addProduct("Mouse");
+            assertEquals(List.of("Laptop", "Mouse"), items);
+
+            cart.removeProduct("Laptop");
+            assertEquals(1, items.size());
+            assertFalse(items.contains("Laptop"));
+            assertEquals("Mouse", items.get(0));
+            assertThrows(IndexOutOfBoundsException.class, () -> items.get(1));
+        }
+
+        @Test
+        @DisplayName("Should be read-only")
+        void testGetItemsReadOnly() {
+            cart.addProduct("Laptop");
+            List<String> items = cart.getItems();
+            assertThrows(UnsupportedOperationException.class, () -> items.add("Mouse"));
+            assertThrows(UnsupportedOperationException.class, () -> items.remove("Laptop"));
+            assertThrows(UnsupportedOperationException.class, items::clear);
+            assertTrue(cart.containsProduct("Laptop"));
+        }
+
+        @Test
+        @DisplayName("Should allow removing items while iterating getItems")
+        void testRemoveWhileIterating() {
+            cart.addProduct("Laptop");
+            cart.addProduct("Mouse");
+            cart.addProduct("Keyboard");
+            for (String name : cart.getItems()) {
+                cart.removeProduct(name);
+            }
+            assertTrue(cart.isEmpty());
+            assertTrue(cart.getItems().isEmpty());
+        }
     }
 
     @Nested
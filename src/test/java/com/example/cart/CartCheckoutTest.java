@@ -0,0 +1,153 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Cart Checkout Pipeline Tests")
+class CartCheckoutTest {
+
+    private Cart cart;
+    private TaxStage tax;
+
+    @BeforeEach
+    void setUp() {
+        cart = new Cart();
+        cart.addProduct(TestDataFactory.createLaptop());
+        cart.addProduct(TestDataFactory.createBook(), 2);
+        tax = new TaxStage(Map.of("Electronics", 0.10, "Books", 0.0), 0.05);
+    }
+
+    @Nested
+    @DisplayName("Tax Stage Tests")
+    class TaxStageTests {
+
+        @Test
+        @DisplayName("Should tax each line by its category")
+        void testTaxByCategory() {
+            Checkout checkout = cart.checkout(tax);
+            assertEquals(99.999, checkout.getStageAmount(TaxStage.NAME), 0.0001);
+            assertEquals(cart.getTotal() + 99.999, checkout.getGrandTotal(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should tax the discounted line amount")
+        void testTaxAfterDiscount() {
+            cart.applyDiscount(10.0);
+            cart.addPromotion("Laptop", 99.99);
+            Checkout checkout = cart.checkout(tax);
+            assertEquals((999.99 * 0.9 - 99.99) * 0.10, checkout.getStageAmount(TaxStage.NAME), 0.0001);
+            assertEquals(cart.getTotal(), checkout.getMerchandiseTotal(), 0.0001);
+            assertEquals(cart.getDiscountAmount(), checkout.getDiscount(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should use the default rate for unknown and null categories")
+        void testDefaultRate() {
+            assertEquals(0.05, tax.rateFor(new Product("Gadget", 1.0, "Unlisted Category")));
+            assertEquals(0.05, tax.rateFor(new Product("Gadget", 1.0, null)));
+            assertEquals(0.10, tax.rateFor(TestDataFactory.createMouse()));
+            assertEquals(0.10, tax.rateFor(TestDataFactory.createMouse()));
+        }
+
+        @Test
+        @DisplayName("Should reject negative rates")
+        void testInvalidRates() {
+            assertThrows(IllegalArgumentException.class, () -> new TaxStage(Map.of("Books", -0.1), 0.0));
+            assertThrows(IllegalArgumentException.class, () -> new TaxStage(Map.of(), -1.0));
+            assertThrows(IllegalArgumentException.class, () -> new TaxStage(null, 0.0));
+        }
+    }
+
+    @Nested
+    @DisplayName("Pipeline Tests")
+    class PipelineTests {
+
+        @Test
+        @DisplayName("Should match the cart totals with no stages")
+        void testNoStages() {
+            cart.applyDiscount(5.0);
+            Checkout checkout = cart.checkout();
+            assertEquals(cart.getSubtotal(), checkout.getSubtotal(), 0.0001);
+            assertEquals(cart.getTotal(), checkout.getGrandTotal(), 0.0001);
+            assertTrue(checkout.getStageAmounts().isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should charge shipping below the threshold only")
+        void testShipping() {
+            ShippingStage shipping = new ShippingStage(9.99, 50.0);
+            assertEquals(0.0, cart.checkout(shipping).getStageAmount(ShippingStage.NAME));
+
+            Cart small = new Cart();
+            small.addProduct(TestDataFactory.createMouse());
+            assertEquals(9.99, small.checkout(shipping).getStageAmount(ShippingStage.NAME));
+            assertEquals(0.0, new Cart().checkout(shipping).getGrandTotal());
+        }
+
+        @Test
+        @DisplayName("Should apply fees on the running total in stage order")
+        void testStageOrder() {
+            Cart small = new Cart();
+            small.addProduct(TestDataFactory.createMouse());
+            FeeStage payment = new FeeStage("payment", 0.30, 2.0);
+
+            Checkout checkout = small.checkout(List.of(tax, new ShippingStage(10.0, 100.0), payment));
+            double afterShipping = 29.99 * 1.10 + 10.0;
+            assertEquals(0.30 + afterShipping * 0.02, checkout.getStageAmount("payment"), 0.0001);
+            assertEquals(afterShipping + 0.30 + afterShipping * 0.02, checkout.getGrandTotal(), 0.0001);
+            assertEquals(List.of(TaxStage.NAME, ShippingStage.NAME, "payment"),
+                List.copyOf(checkout.getStageAmounts().keySet()));
+        }
+
+        @Test
+        @DisplayName("Should leave later stages' line amounts out of an order fee")
+        void testFeeBeforeTax() {
+            Cart tv = new Cart();
+            tv.addProduct(new Product("TV", 100.0, "Electronics"));
+            FeeStage fee = new FeeStage("fee", 0.0, 10.0);
+
+            Checkout feeFirst = tv.checkout(fee, tax);
+            assertEquals(10.0, feeFirst.getStageAmount("fee"), 0.0001);
+            assertEquals(120.0, feeFirst.getGrandTotal(), 0.0001);
+
+            Checkout taxFirst = tv.checkout(tax, fee);
+            assertEquals(11.0, taxFirst.getStageAmount("fee"), 0.0001);
+            assertEquals(121.0, taxFirst.getGrandTotal(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should let later stages read earlier per-line amounts")
+        void testSharedLineResults() {
+            PricingStage taxOnTax = new PricingStage() {
+                @Override
+                public String getName() {
+                    return "surcharge";
+                }
+
+                @Override
+                public double lineAmount(PricedLine line) {
+                    return line.getStageAmount(0) * 0.5;
+                }
+            };
+            Checkout checkout = cart.checkout(tax, taxOnTax);
+            assertEquals(checkout.getStageAmount(TaxStage.NAME) * 0.5, checkout.getStageAmount("surcharge"), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should reject null and duplicate stages")
+        void testInvalidStages() {
+            assertThrows(IllegalArgumentException.class, () -> cart.checkout(tax, tax));
+            assertThrows(IllegalArgumentException.class, () -> cart.checkout((PricingStage) null));
+            assertThrows(IllegalArgumentException.class, () -> cart.checkout((List<PricingStage>) null));
+            assertThrows(IllegalArgumentException.class, () -> new FeeStage("", 1.0, 0.0));
+            assertThrows(IllegalArgumentException.class, () -> new ShippingStage(-1.0, 0.0));
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Cart Cluster Tests")
+class CartClusterTest {
+
+    private static final int SESSIONS = 20_000;
+
+    private CartCluster cluster;
+
+    @BeforeEach
+    void setUp() {
+        cluster = new CartCluster();
+        for (int i = 0; i < 5; i++) {
+            cluster.addNode("node-" + i);
+        }
+    }
+
+    private void populate(int sessions) {
+        for (int i = 0; i < sessions; i++) {
+            cluster.getCart("session-" + i).addProduct(TestDataFactory.createMouse(), i % 7 + 1);
+        }
+    }
+
+    private Map<String, String> owners(int sessions) {
+        Map<String, String> owners = new HashMap<>();
+        for (int i = 0; i < sessions; i++) {
+            owners.put("session-" + i, cluster.getNodeFor("session-" + i));
+        }
+        return owners;
+    }
+
+    @Nested
+    @DisplayName("Routing Tests")
+    class RoutingTests {
+
+        @Test
+        @DisplayName("Should route a session to the same cart every time")
+        void testStableRouting() {
+            Cart cart = cluster.getCart("abc");
+            cart.addProduct(TestDataFactory.createLaptop());
+            assertSame(cart, cluster.getCart("abc"));
+            assertEquals(cluster.getNodeFor("abc"), cluster.getNodeFor("abc"));
+        }
+
+        @Test
+        @DisplayName("Should reject invalid session ids and empty clusters")
+        void testInvalidRouting() {
+            assertThrows(IllegalArgumentException.class, () -> cluster.getCart(null));
+            assertThrows(IllegalArgumentException.class, () -> cluster.getCart(""));
+            assertThrows(IllegalStateException.class, () -> new CartCluster().getCart("abc"));
+        }
+
+        @Test
+        @DisplayName("Should reject duplicate node ids")
+        void testDuplicateNode() {
+            assertThrows(IllegalArgumentException.class, () -> cluster.addNode("node-0"));
+        }
+
+        @Test
+        @DisplayName("Should spread sessions evenly across nodes")
+        void testEvenDistribution() {
+            populate(SESSIONS);
+            double mean = SESSIONS / 5.0;
+
+            for (String nodeId : cluster.getNodeIds()) {
+                int size = cluster.getNode(nodeId).size();
+                assertTrue(Math.abs(size - mean) < mean * 0.25,
+                    nodeId + " holds " + size + " carts, expected about " + mean);
+            }
+            assertEquals(SESSIONS, cluster.getTotalCarts());
+        }
+    }
+
+    @Nested
+    @DisplayName("Rebalancing Tests")
+    class RebalancingTests {
+
+        @Test
+        @DisplayName("Should only move sessions to a joining node")
+        void testMinimalMovementOnJoin() {
+            populate(SESSIONS);
+            Map<String, String> before = owners(SESSIONS);
+
+            int moved = cluster.addNode("node-5");
+            Map<String, String> after = owners(SESSIONS);
+
+            int changed = 0;
+            for (Map.Entry<String, String> entry : before.entrySet()) {
+                String newOwner = after.get(entry.getKey());
+                if (!newOwner.equals(entry.getValue())) {
+                    assertEquals("node-5", newOwner);
+                    changed++;
+                }
+            }
+            assertEquals(changed, moved);
+            assertTrue(moved < SESSIONS * 0.25, "moved " + moved + " sessions");
+            assertTrue(moved > SESSIONS * 0.08, "moved " + moved + " sessions");
+            assertEquals(SESSIONS, cluster.getTotalCarts());
+        }
+
+        @Test
+        @DisplayName("Should only move the leaving node's sessions")
+        void testMinimalMovementOnLeave() {
+            populate(SESSIONS);
+            Map<String, String> before = owners(SESSIONS);
+            int leavingSize = cluster.getNode("node-2").size();
+
+            int moved = cluster.removeNode("node-2");
+            Map<String, String> after = owners(SESSIONS);
+
+            assertEquals(leavingSize, moved);
+            for (Map.Entry<String, String> entry : before.entrySet()) {
+                if (!entry.getValue().equals("node-2")) {
+                    assertEquals(entry.getValue(), after.get(entry.getKey()));
+                }
+            }
+            assertEquals(SESSIONS, cluster.getTotalCarts());
+            assertNull(cluster.getNode("node-2"));
+        }
+
+        @Test
+        @DisplayName("Should preserve cart contents across migration")
+        void testCartContentsSurviveMigration() {
+            Cart cart = cluster.getCart("shopper");
+            cart.addProduct(TestDataFactory.createLaptop(), 2);
+            cart.addProduct(TestDataFactory.createProductWithUnicode());
+            cart.addPromotion("Laptop", 50.0);
+            cart.applyDiscount(10.0);
+            double total = cart.getTotal();
+            long version = cart.getVersion();
+
+            cluster.removeNode(cluster.getNodeFor("shopper"));
+            Cart migrated = cluster.getCart("shopper");
+
+            assertNotSame(cart, migrated);
+            assertEquals(2, migrated.getQuantity(TestDataFactory.createLaptop()));
+            assertEquals(total, migrated.getTotal(), 0.001);
+            assertEquals(version, migrated.getVersion());
+        }
+
+        @Test
+        @DisplayName("Should keep node-level prices and promotions across migration")
+        void testNodePricingSurvivesMigration() {
+            PriceTable prices = new PriceTable();
+            prices.setPrice("Laptop", 99.0);
+            PromotionCatalog promotions = new PromotionCatalog();
+            promotions.setPromotion("Mouse", 5.0);
+            cluster.setPriceTable(prices);
+            cluster.setPromotionCatalog(promotions);
+
+            Cart cart = cluster.getCart("shopper");
+            cart.addProduct(TestDataFactory.createLaptop());
+            cart.addProduct(TestDataFactory.createMouse());
+            double total = cart.getTotal();
+            assertEquals(99.0 + 29.99 - 5.0, total, 0.001);
+            long version = cart.getVersion();
+
+            cluster.removeNode(cluster.getNodeFor("shopper"));
+            Cart migrated = cluster.getCart("shopper");
+
+            assertNotSame(cart, migrated);
+            assertEquals(total, migrated.getTotal(), 0.001);
+            assertEquals(version, migrated.getVersion());
+            assertSame(prices, migrated.getPriceTable());
+
+            cluster.addNode("node-late");
+            assertSame(prices, cluster.getNode("node-late").getPriceTable());
+            assertSame(promotions, cluster.getNode("node-late").getPromotionCatalog());
+        }
+
+        @Test
+        @DisplayName("Should price foreign-currency lines after migration")
+        void testFxRatesSurviveMigration() {
+            Currency usd = Currency.getInstance("USD");
+            Currency eur = Currency.getInstance("EUR");
+            FxRateTable rates = new FxRateTable(usd);
+            rates.setRate(eur, 0.5);
+            cluster.setFxRates(rates);
+
+            Cart cart = cluster.getCart("traveller");
+            cart.setCurrency(usd);
+            cart.addProduct(new Product(Product.NO_ID, "Espresso Machine", 100.0, "Imports", eur));
+            double total = cart.getTotal();
+            assertEquals(200.0, total, 0.001);
+
+            cluster.removeNode(cluster.getNodeFor("traveller"));
+            Cart migrated = cluster.getCart("traveller");
+
+            assertNotSame(cart, migrated);
+            assertEquals(total, migrated.getTotal(), 0.001);
+            assertSame(rates, migrated.getFxRates());
+
+            cluster.addNode("node-late");
+            assertSame(rates, cluster.getNode("node-late").getFxRates());
+        }
+
+        @Test
+        @DisplayName("Should keep cart limits after migration")
+        void testLimitsSurviveMigration() {
+            CartLimits limits = new CartLimits(3, 5, 10, 1000.0);
+            Cart cart = cluster.getCart("bot");
+            cart.setLimits(limits);
+            cart.addProduct(TestDataFactory.createMouse(), 3);
+
+            cluster.removeNode(cluster.getNodeFor("bot"));
+            Cart migrated = cluster.getCart("bot");
+
+            assertNotSame(cart, migrated);
+            assertEquals(limits.toString(), migrated.getLimits().toString());
+            assertThrows(CartLimitExceededException.class,
+                () -> migrated.addProduct(TestDataFactory.createMouse()));
+            assertEquals(3, migrated.getQuantity(TestDataFactory.createMouse()));
+        }
+
+        @Test
+        @DisplayName("Should resolve product ids after migration")
+        void testCatalogSurvivesMigration() {
+            ProductCatalog catalog = new ProductCatalog();
+            catalog.register(new Product(7L, "Monitor", 199.0, "Electronics"));
+            catalog.register(new Product(8L, "Cable", 9.0, "Electronics"));
+            cluster.setCatalog(catalog);
+
+            Cart cart = cluster.getCart("shopper");
+            cart.addProduct(7L, 1);
+            cluster.removeNode(cluster.getNodeFor("shopper"));
+            Cart migrated = cluster.getCart("shopper");
+
+            assertNotSame(cart, migrated);
+            assertSame(catalog, migrated.getCatalog());
+            assertTrue(migrated.addProduct(8L, 2));
+            assertTrue(migrated.removeProduct(7L));
+            assertEquals(2, migrated.getItemCount());
+
+            cluster.addNode("node-late");
+            assertSame(catalog, cluster.getNode("node-late").getCatalog());
+        }
+
+        @Test
+        @DisplayName("Should move stock holds with migrated carts")
+        void testHoldsFollowMigration() {
+            InMemoryInventory inventory = new InMemoryInventory();
+            ReservationBatcher batcher = new ReservationBatcher(inventory, Clock.systemUTC(), Duration.ofHours(1), 100);
+            cluster.setReservations(batcher);
+            Product mouse = TestDataFactory.createMouse();
+            for (int i = 0; i < 200; i++) {
+                cluster.getCart("session-" + i).addProduct(mouse);
+            }
+            batcher.flush();
+            assertEquals(200, inventory.getHeld(mouse));
+
+            assertTrue(cluster.addNode("node-extra") > 0);
+            batcher.flush();
+            assertEquals(200, inventory.getHeld(mouse));
+
+            for (int i = 0; i < 200; i++) {
+                cluster.getCart("session-" + i).clearCart();
+            }
+            batcher.flush();
+            assertEquals(0, inventory.getHeld(mouse));
+        }
+
+        @Test
+        @DisplayName("Should never hand out an empty cart while rebalancing")
+        void testLookupsDuringRebalance() throws InterruptedException {
+            int sessions = 500;
+            populate(sessions);
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicInteger wrong = new AtomicInteger();
+            Thread reader = new Thread(() -> {
+                while (running.get()) {
+                    for (int i = 0; i < sessions; i++) {
+                        if (cluster.getCart("session-" + i).getQuantity(TestDataFactory.createMouse()) != i % 7 + 1) {
+                            wrong.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            reader.start();
+            try {
+                for (int round = 0; round < 20; round++) {
+                    cluster.addNode("node-extra");
+                    cluster.removeNode("node-extra");
+                }
+            } finally {
+                running.set(false);
+                reader.join();
+            }
+
+            assertEquals(0, wrong.get());
+            assertEquals(sessions, cluster.getTotalCarts());
+        }
+
+        @Test
+        @DisplayName("Should not remove the last node while it holds carts")
+        void testRemoveLastNode() {
+            CartCluster single = new CartCluster(8);
+            single.addNode("only");
+            single.getCart("abc");
+            assertThrows(IllegalStateException.class, () -> single.removeNode("only"));
+            assertEquals(0, single.removeNode("missing"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Codec Tests")
+    class CodecTests {
+
+        @Test
+        @DisplayName("Should round-trip a cart with null category and promotions")
+        void testRoundTrip() {
+            Cart cart = TestDataFactory.createCartWithPromotions();
+            cart.addProduct(new Product("Item", 10.0, null), 3);
+
+            Cart copy = CartCodec.decode(CartCodec.encode(cart));
+
+            assertEquals(cart.getProductsWithQuantities(), copy.getProductsWithQuantities());
+            assertEquals(cart.getActivePromotions(), copy.getActivePromotions());
+            assertEquals(cart.getDiscountPercentage(), copy.getDiscountPercentage(), 0.001);
+            assertEquals(cart.getVersion(), copy.getVersion());
+            assertSame(CartLimits.UNLIMITED, copy.getLimits());
+        }
+
+        @Test
+        @DisplayName("Should reject data that is not an encoded cart")
+        void testRejectGarbage() {
+            assertThrows(IllegalArgumentException.class, () -> CartCodec.decode(new byte[] {1, 2, 3}));
+            assertThrows(IllegalArgumentException.class, () -> CartCodec.decode(null));
+        }
+    }
+}
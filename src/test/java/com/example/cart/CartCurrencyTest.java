@@ -0,0 +1,144 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Cart Currency Tests")
+class CartCurrencyTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency EUR = Currency.getInstance("EUR");
+    private static final Currency GBP = Currency.getInstance("GBP");
+
+    private FxRateTable rates;
+    private Cart cart;
+
+    @BeforeEach
+    void setUp() {
+        rates = new FxRateTable(USD);
+        rates.setRate(EUR, 0.5);
+        rates.setRate(GBP, 0.25);
+
+        cart = new Cart();
+        cart.setCurrency(USD);
+        cart.setFxRates(rates);
+    }
+
+    private static Product euroProduct(String name, double price) {
+        return new Product(Product.NO_ID, name, price, "Imports", EUR);
+    }
+
+    @Nested
+    @DisplayName("Rate Table Tests")
+    class RateTableTests {
+
+        @Test
+        @DisplayName("Should convert through the base currency")
+        void testConvert() {
+            assertEquals(20.0, rates.convert(10.0, EUR, USD), 0.0001);
+            assertEquals(5.0, rates.convert(10.0, EUR, GBP), 0.0001);
+            assertEquals(10.0, rates.convert(10.0, GBP, GBP));
+        }
+
+        @Test
+        @DisplayName("Should bump the version on every change")
+        void testVersion() {
+            long version = rates.getVersion();
+            rates.setRate(EUR, 0.6);
+            assertTrue(rates.removeRate(GBP));
+            assertFalse(rates.removeRate(GBP));
+            assertEquals(version + 2, rates.getVersion());
+        }
+
+        @Test
+        @DisplayName("Should reject invalid rates and missing conversions")
+        void testInvalid() {
+            assertThrows(IllegalArgumentException.class, () -> rates.setRate(EUR, 0.0));
+            assertThrows(IllegalArgumentException.class, () -> rates.setRate(USD, 2.0));
+            assertThrows(IllegalArgumentException.class, () -> new FxRateTable(null));
+            assertThrows(IllegalStateException.class,
+                () -> rates.convert(1.0, Currency.getInstance("JPY"), USD));
+        }
+    }
+
+    @Nested
+    @DisplayName("Cart Conversion Tests")
+    class CartConversionTests {
+
+        @Test
+        @DisplayName("Should price foreign lines in the cart currency")
+        void testForeignLines() {
+            cart.addProduct(TestDataFactory.createMouse(), 2);
+            cart.addProduct(euroProduct("Espresso Machine", 100.0));
+
+            assertEquals(200.0, cart.getUnitPrice(euroProduct("Espresso Machine", 100.0)), 0.0001);
+            assertEquals(29.99 * 2 + 200.0, cart.getTotal(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should convert the total into another currency")
+        void testTotalInCurrency() {
+            cart.addProduct(TestDataFactory.createLaptop());
+            assertEquals(999.99, cart.getTotal(USD), 0.0001);
+            assertEquals(499.995, cart.getTotal(EUR), 0.0001);
+            assertEquals(249.9975, cart.getTotal(GBP), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should pick up rate changes on the next read")
+        void testRateChange() {
+            cart.addProduct(euroProduct("Espresso Machine", 100.0));
+            assertEquals(200.0, cart.getTotal(), 0.0001);
+
+            rates.setRate(EUR, 0.8);
+            assertEquals(125.0, cart.getTotal(), 0.0001);
+            assertEquals(100.0, cart.getTotal(EUR), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should fail pricing when a line has no exchange rate")
+        void testMissingRate() {
+            cart.addProduct(new Product(Product.NO_ID, "Sushi Knife", 5000.0, "Kitchen", Currency.getInstance("JPY")));
+            assertThrows(IllegalStateException.class, cart::getTotal);
+            assertThrows(IllegalStateException.class, () -> cart.checkout());
+
+            rates.setRate(Currency.getInstance("JPY"), 100.0);
+            assertEquals(50.0, cart.getTotal(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should keep legacy unitless pricing without a cart currency")
+        void testNoCurrency() {
+            Cart plain = new Cart();
+            plain.addProduct(euroProduct("Espresso Machine", 100.0));
+            assertEquals(100.0, plain.getTotal(), 0.0001);
+            assertThrows(IllegalStateException.class, () -> plain.getTotal(USD));
+            assertThrows(IllegalArgumentException.class, () -> cart.getTotal(null));
+        }
+
+        @Test
+        @DisplayName("Should keep currencies across serialization")
+        void testCodec() {
+            cart.addProduct(euroProduct("Espresso Machine", 100.0));
+            Cart copy = CartCodec.decode(CartCodec.encode(cart));
+            assertEquals(USD, copy.getCurrency());
+            copy.setFxRates(rates);
+            assertEquals(200.0, copy.getTotal(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should treat the same product in different currencies as different lines")
+        void testCurrencyIdentity() {
+            cart.addProduct(new Product("Mug", 10.0, "Kitchen"));
+            cart.addProduct(new Product(Product.NO_ID, "Mug", 10.0, "Kitchen", EUR));
+            assertEquals(2, cart.getUniqueProductCount());
+            assertEquals(30.0, cart.getTotal(), 0.0001);
+        }
+    }
+}
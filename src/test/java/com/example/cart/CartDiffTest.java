@@ -0,0 +1,285 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Cart Diff Tests")
+class CartDiffTest {
+
+    private Cart server;
+    private Cart client;
+    private Product laptop;
+    private Product mouse;
+    private Product keyboard;
+
+    @BeforeEach
+    void setUp() {
+        server = TestDataFactory.createCartWithMultipleProducts();
+        client = CartCodec.decode(CartCodec.encode(server));
+        laptop = TestDataFactory.createLaptop();
+        mouse = TestDataFactory.createMouse();
+        keyboard = TestDataFactory.createKeyboard();
+    }
+
+    private static void assertSameCart(Cart expected, Cart actual) {
+        assertEquals(expected.getProductsWithQuantities(), actual.getProductsWithQuantities());
+        assertEquals(expected.getActivePromotions(), actual.getActivePromotions());
+        assertEquals(expected.getDiscountPercentage(), actual.getDiscountPercentage());
+        assertEquals(expected.getTotal(), actual.getTotal(), 0.0001);
+        assertEquals(expected.getItemCount(), actual.getItemCount());
+        assertEquals(expected.getVersion(), actual.getVersion());
+    }
+
+    @Nested
+    @DisplayName("Diff Tests")
+    class DiffTests {
+
+        @Test
+        @DisplayName("Should be empty when nothing changed")
+        void testNoChanges() {
+            CartDiff diff = CartDiff.between(client, server);
+            assertTrue(diff.isEmpty());
+            assertEquals(server.getVersion(), diff.getFromVersion());
+            assertEquals(server.getVersion(), diff.getToVersion());
+        }
+
+        @Test
+        @DisplayName("Should contain only the changed lines")
+        void testChangedLines() {
+            server.updateQuantity(mouse, 5);
+            server.removeProduct(keyboard);
+            server.addProduct(TestDataFactory.createBook(), 2);
+
+            CartDiff diff = CartDiff.between(client, server);
+
+            assertEquals(Map.of(mouse, 5, TestDataFactory.createBook(), 2), diff.getUpserts());
+            assertEquals(List.of(keyboard), diff.getRemovals());
+            assertFalse(diff.getUpserts().containsKey(laptop));
+        }
+
+        @Test
+        @DisplayName("Should report a line added and removed again as a removal")
+        void testAddedThenRemoved() {
+            Product book = TestDataFactory.createBook();
+            server.addProduct(book);
+            server.removeProduct(book);
+
+            CartDiff diff = CartDiff.between(client, server);
+            assertEquals(List.of(book), diff.getRemovals());
+            assertTrue(diff.getUpserts().isEmpty());
+            assertTrue(client.apply(diff));
+            assertSameCart(server, client);
+        }
+
+        @Test
+        @DisplayName("Should compare all lines for unrelated carts")
+        void testUnrelatedCarts() {
+            Cart other = new Cart();
+            other.addProduct(mouse, 2);
+            other.addProduct(TestDataFactory.createBook());
+
+            CartDiff diff = CartDiff.between(other, server);
+            assertEquals(Map.of(laptop, 1, keyboard, 1), diff.getUpserts());
+            assertEquals(List.of(TestDataFactory.createBook()), diff.getRemovals());
+
+            assertTrue(other.apply(diff));
+            assertSameCart(server, other);
+            server.addProduct(mouse);
+            assertEquals(Map.of(mouse, server.getQuantity(mouse)), CartDiff.between(other, server).getUpserts());
+        }
+
+        @Test
+        @DisplayName("Should fall back to a full comparison when the journal no longer reaches back")
+        void testJournalOverflow() {
+            for (int i = 0; i < ChangeJournal.DEFAULT_CAPACITY + 10; i++) {
+                server.updateQuantity(mouse, i % 7 + 1);
+            }
+            server.removeProduct(laptop);
+
+            CartDiff diff = CartDiff.between(client, server);
+            assertEquals(List.of(laptop), diff.getRemovals());
+            assertEquals(Map.of(mouse, server.getQuantity(mouse)), diff.getUpserts());
+            assertTrue(client.apply(diff));
+            assertSameCart(server, client);
+        }
+
+        @Test
+        @DisplayName("Should reject null carts")
+        void testNullCarts() {
+            assertThrows(IllegalArgumentException.class, () -> CartDiff.between(null, server));
+            assertThrows(IllegalArgumentException.class, () -> CartDiff.between(client, null));
+        }
+    }
+
+    @Nested
+    @DisplayName("Apply Tests")
+    class ApplyTests {
+
+        @Test
+        @DisplayName("Should bring a copy up to date including discount and promotions")
+        void testApply() {
+            server.updateQuantity(laptop, 3);
+            server.clearCart();
+            server.addProduct(keyboard, 4);
+            server.applyDiscount(10.0);
+            server.addPromotion("Keyboard", 5.0);
+
+            assertTrue(client.apply(CartDiff.between(client, server)));
+            assertSameCart(server, client);
+        }
+
+        @Test
+        @DisplayName("Should refuse a diff computed for another version")
+        void testStaleDiff() {
+            Product book = TestDataFactory.createBook();
+            server.addProduct(book);
+            CartDiff diff = CartDiff.between(client, server);
+            client.addProduct(laptop);
+
+            long version = client.getVersion();
+            assertFalse(client.apply(diff));
+            assertEquals(version, client.getVersion());
+            assertFalse(client.containsProduct(book));
+        }
+
+        @Test
+        @DisplayName("Should keep syncing through successive diffs")
+        void testSuccessiveDiffs() {
+            Random random = new Random(7);
+            List<Product> products = List.of(laptop, mouse, keyboard, TestDataFactory.createBook());
+            for (int round = 0; round < 50; round++) {
+                for (int i = 0; i < 3; i++) {
+                    Product product = products.get(random.nextInt(products.size()));
+                    if (random.nextInt(4) == 0) {
+                        server.removeProduct(product);
+                    } else {
+                        server.addProduct(product, random.nextInt(3) + 1);
+                    }
+                }
+                assertTrue(client.apply(CartDiff.between(client, server)));
+                assertSameCart(server, client);
+            }
+        }
+
+        @Test
+        @DisplayName("Should sync a copy that was changed locally")
+        void testLocallyChangedCopy() {
+            Product book = TestDataFactory.createBook();
+            Product monitor = new Product("Monitor", 199.99, "Electronics");
+            client.addProduct(book);
+            server.addProduct(monitor);
+            server.updateQuantity(laptop, 2);
+            assertEquals(client.getVersion(), server.getVersion() - 1);
+
+            CartDiff diff = CartDiff.between(client, server);
+            assertTrue(diff.getRemovals().contains(book));
+            assertTrue(client.apply(diff));
+            assertEquals(server.getProductsWithQuantities(), client.getProductsWithQuantities());
+        }
+
+        @Test
+        @DisplayName("Should sync a copy whose discount was changed locally")
+        void testLocallyDiscountedCopy() {
+            client.applyDiscount(5.0);
+            server.addProduct(TestDataFactory.createBook());
+
+            assertTrue(client.apply(CartDiff.between(client, server)));
+            assertEquals(server.getProductsWithQuantities(), client.getProductsWithQuantities());
+            assertEquals(server.getDiscountPercentage(), client.getDiscountPercentage());
+        }
+
+        @Test
+        @DisplayName("Should refuse a diff computed against another cart at the same version")
+        void testOtherCartSameVersion() {
+            Cart unrelated = new Cart();
+            unrelated.addProduct(TestDataFactory.createBook());
+            while (unrelated.getVersion() < client.getVersion()) {
+                unrelated.applyDiscount(unrelated.getVersion());
+            }
+            server.addProduct(keyboard);
+            CartDiff diff = CartDiff.between(client, server);
+
+            assertFalse(unrelated.apply(diff));
+            assertEquals(Map.of(TestDataFactory.createBook(), 1), unrelated.getProductsWithQuantities());
+            assertTrue(client.apply(diff));
+        }
+
+        @Test
+        @DisplayName("Should never move the version backwards")
+        void testVersionStaysMonotonic() {
+            Cart target = new Cart();
+            for (int i = 0; i < 10; i++) {
+                target.addProduct(TestDataFactory.createBook());
+            }
+            Cart source = new Cart();
+            source.addProduct(mouse);
+            long version = target.getVersion();
+            assertTrue(source.getVersion() < version);
+
+            assertTrue(target.apply(CartDiff.between(target, source)));
+            assertTrue(target.getVersion() > version);
+            assertEquals(source.getProductsWithQuantities(), target.getProductsWithQuantities());
+
+            // Not a copy of source at its version, so later diffs compare all lines
+            source.addProduct(keyboard);
+            assertTrue(target.apply(CartDiff.between(target, source)));
+            assertEquals(source.getProductsWithQuantities(), target.getProductsWithQuantities());
+        }
+
+        @Test
+        @DisplayName("Should reject a null diff")
+        void testNullDiff() {
+            assertThrows(IllegalArgumentException.class, () -> client.apply(null));
+        }
+    }
+
+    @Nested
+    @DisplayName("Encoding Tests")
+    class EncodingTests {
+
+        @Test
+        @DisplayName("Should round-trip through the binary encoding")
+        void testRoundTrip() {
+            server.updateQuantity(mouse, 9);
+            server.removeProduct(keyboard);
+            server.addProduct(new Product(42L, "Monitor", 199.99, null), 2);
+            server.addPromotion("Mouse", 1.5);
+
+            CartDiff decoded = CartDiff.decode(CartDiff.between(client, server).encode());
+
+            assertTrue(client.apply(decoded));
+            assertSameCart(server, client);
+        }
+
+        @Test
+        @DisplayName("Should be much smaller than the full cart for a single change")
+        void testCompact() {
+            Cart large = TestDataFactory.createCartWithLargeInventory();
+            Cart copy = CartCodec.decode(CartCodec.encode(large));
+            large.addProduct(mouse);
+
+            byte[] diff = CartDiff.between(copy, large).encode();
+            assertTrue(diff.length * 10 < CartCodec.encode(large).length,
+                diff.length + " bytes vs " + CartCodec.encode(large).length);
+        }
+
+        @Test
+        @DisplayName("Should reject corrupt data")
+        void testCorrupt() {
+            byte[] encoded = CartDiff.between(client, server).encode();
+            assertThrows(IllegalArgumentException.class, () -> CartDiff.decode(new byte[] {1, 2, 3}));
+            assertThrows(IllegalArgumentException.class,
+                () -> CartDiff.decode(Arrays.copyOf(encoded, encoded.length - 2)));
+            assertThrows(IllegalArgumentException.class, () -> CartDiff.decode(null));
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Cart Exporter Tests")
+class CartExporterTest {
+
+    private ByteArrayOutputStream output;
+
+    @BeforeEach
+    void setUp() {
+        output = new ByteArrayOutputStream();
+    }
+
+    private CartExporter exporter(CartExporter.Format format, int bufferSize) {
+        return new CartExporter(Channels.newChannel(output), format, bufferSize);
+    }
+
+    @Nested
+    @DisplayName("Line Streaming Tests")
+    class LineStreamingTests {
+
+        @Test
+        @DisplayName("Should visit every line with effective prices")
+        void testForEachLine() {
+            Cart cart = TestDataFactory.createCartWithMultipleProducts();
+            PriceTable table = new PriceTable();
+            table.setPrice("Mouse", 20.0);
+            cart.setPriceTable(table);
+
+            Map<String, Double> totals = new HashMap<>();
+            cart.forEachLine((name, price, category, quantity, lineTotal) -> {
+                assertEquals("Electronics", category);
+                assertEquals(price * quantity, lineTotal, 0.0001);
+                totals.put(name, lineTotal);
+            });
+
+            assertEquals(Map.of("Laptop", 999.99, "Mouse", 40.0, "Keyboard", 79.99), totals);
+        }
+
+        @Test
+        @DisplayName("Should reject null consumer")
+        void testNullConsumer() {
+            assertThrows(IllegalArgumentException.class, () -> new Cart().forEachLine(null));
+        }
+    }
+
+    @Nested
+    @DisplayName("CSV Export Tests")
+    class CsvExportTests {
+
+        @Test
+        @DisplayName("Should write header and one row per line")
+        void testCsvRows() throws IOException {
+            Cart cart = new Cart();
+            cart.addProduct(TestDataFactory.createMouse(), 3);
+
+            try (CartExporter exporter = exporter(CartExporter.Format.CSV, 64)) {
+                exporter.export("s1", cart);
+                assertEquals(1, exporter.getLinesWritten());
+            }
+
+            assertEquals("cart_id,name,unit_price,category,quantity,line_total\n"
+                + "s1,Mouse,29.99,Electronics,3,89.97\n", output.toString(StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @DisplayName("Should quote fields with separators and keep unicode intact")
+        void testCsvEscaping() throws IOException {
+            Cart cart = new Cart();
+            cart.addProduct(new Product("Bolt, \"M8\"", 0.5, null), 10);
+            cart.addProduct(TestDataFactory.createProductWithUnicode());
+
+            try (CartExporter exporter = exporter(CartExporter.Format.CSV, 64)) {
+                exporter.export("s1", cart);
+            }
+
+            String csv = output.toString(StandardCharsets.UTF_8);
+            assertTrue(csv.contains("s1,\"Bolt, \"\"M8\"\"\",0.50,,10,5.00\n"), csv);
+            assertTrue(csv.contains("s1,笔记本电脑 Laptop,1200.00,Electronics,1,1200.00\n"), csv);
+        }
+
+        @Test
+        @DisplayName("Should write an unpaired surrogate as a single '?' byte")
+        void testCsvLoneSurrogate() throws IOException {
+            Cart cart = new Cart();
+            cart.addProduct(new Product("a\uD800b", 1.0, "Misc"));
+
+            try (CartExporter exporter = exporter(CartExporter.Format.CSV, 64)) {
+                exporter.export("s1", cart);
+            }
+
+            String expected = "cart_id,name,unit_price,category,quantity,line_total\n"
+                + "s1,a?b,1.00,Misc,1,1.00\n";
+            assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), output.toByteArray());
+        }
+
+        @Test
+        @DisplayName("Should stream many carts through a small buffer")
+        void testManyCarts() throws IOException {
+            CartStore store = new CartStore("n1");
+            for (int i = 0; i < 200; i++) {
+                store.putCart("s" + i, TestDataFactory.createCartWithLargeInventory());
+            }
+
+            try (CartExporter exporter = exporter(CartExporter.Format.CSV, 128)) {
+                exporter.exportAll(store);
+                assertEquals(200, exporter.getCartsWritten());
+                assertEquals(200 * 50, exporter.getLinesWritten());
+            }
+
+            String[] rows = output.toString(StandardCharsets.UTF_8).split("\n");
+            assertEquals(1 + 200 * 50, rows.length);
+        }
+    }
+
+    @Nested
+    @DisplayName("Columnar Export Tests")
+    class ColumnarExportTests {
+
+        private String readString(ByteBuffer in) {
+            int length = in.getInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Test
+        @DisplayName("Should length-prefix an unpaired surrogate as one byte")
+        void testColumnarLoneSurrogate() throws IOException {
+            Cart cart = new Cart();
+            cart.addProduct(new Product("a\uD800b", 1.0, "Misc"), 2);
+
+            try (CartExporter exporter = exporter(CartExporter.Format.COLUMNAR, 64)) {
+                exporter.export("s1", cart);
+            }
+
+            ByteBuffer in = ByteBuffer.wrap(output.toByteArray());
+            assertEquals(1, in.getInt());
+            assertEquals("s1", readString(in));
+            assertEquals(3, in.getInt(in.position()));
+            assertEquals("a?b", readString(in));
+            assertEquals(1.0, in.getDouble());
+            assertEquals("Misc", readString(in));
+            assertEquals(2, in.getInt());
+        }
+
+        @Test
+        @DisplayName("Should write column blocks that decode back to the cart")
+        void testColumnarRoundTrip() throws IOException {
+            Cart cart = TestDataFactory.createCartWithMultipleProducts();
+            cart.addProduct(new Product("Item", 10.0, null), 2);
+
+            try (CartExporter exporter = exporter(CartExporter.Format.COLUMNAR, 64)) {
+                exporter.export("s1", cart);
+                exporter.export("empty", new Cart());
+            }
+
+            ByteBuffer in = ByteBuffer.wrap(output.toByteArray());
+            int lines = in.getInt();
+            assertEquals(4, lines);
+            assertEquals("s1", readString(in));
+
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < lines; i++) {
+                names.add(readString(in));
+            }
+            double[] prices = new double[lines];
+            for (int i = 0; i < lines; i++) {
+                prices[i] = in.getDouble();
+            }
+            String[] categories = new String[lines];
+            for (int i = 0; i < lines; i++) {
+                categories[i] = readString(in);
+            }
+            int[] quantities = new int[lines];
+            for (int i = 0; i < lines; i++) {
+                quantities[i] = in.getInt();
+            }
+            double subtotal = 0;
+            for (int i = 0; i < lines; i++) {
+                subtotal += in.getDouble();
+            }
+
+            assertEquals(cart.getSubtotal(), subtotal, 0.0001);
+            assertEquals(cart.getItemCount(), Arrays.stream(quantities).sum());
+            int item = names.indexOf("Item");
+            assertNull(categories[item]);
+            assertEquals(10.0, prices[item]);
+
+            assertEquals(0, in.getInt());
+            assertEquals("empty", readString(in));
+            assertFalse(in.hasRemaining());
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Cart Fork Tests")
+class CartForkTest {
+
+    private Cart cart;
+    private Product laptop;
+    private Product mouse;
+    private Product book;
+
+    @BeforeEach
+    void setUp() {
+        cart = TestDataFactory.createCartWithPromotions();
+        laptop = TestDataFactory.createLaptop();
+        mouse = TestDataFactory.createMouse();
+        book = TestDataFactory.createBook();
+    }
+
+    @Nested
+    @DisplayName("Fork Contents Tests")
+    class ForkContentsTests {
+
+        @Test
+        @DisplayName("Should start with the parent's lines, promotions and totals")
+        void testSameState() {
+            Cart fork = cart.fork();
+
+            assertEquals(cart.getProductsWithQuantities(), fork.getProductsWithQuantities());
+            assertEquals(cart.getActivePromotions(), fork.getActivePromotions());
+            assertEquals(cart.getDiscountPercentage(), fork.getDiscountPercentage());
+            assertEquals(cart.getTotal(), fork.getTotal());
+            assertEquals(cart.getItemCount(), fork.getItemCount());
+            assertEquals(cart.getVersion(), fork.getVersion());
+            assertEquals(cart.getItems(), fork.getItems());
+        }
+
+        @Test
+        @DisplayName("Should fork an empty cart")
+        void testEmptyCart() {
+            Cart fork = new Cart().fork();
+            assertTrue(fork.isEmpty());
+            fork.addProduct(mouse);
+            assertEquals(mouse.getPrice(), fork.getTotal(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should keep limits but not listeners")
+        void testLimitsAndListeners() {
+            List<String> events = new ArrayList<>();
+            cart.addListener(new CartListener() {
+                @Override
+                public void skuAdded(Cart source, String sku) {
+                    events.add(sku);
+                }
+
+                @Override
+                public void skuRemoved(Cart source, String sku) {
+                    events.add(sku);
+                }
+            });
+            cart.setLimits(new CartLimits(5, Integer.MAX_VALUE, Long.MAX_VALUE, Double.POSITIVE_INFINITY));
+
+            events.clear();
+
+            Cart fork = cart.fork();
+            fork.addProduct(book);
+            assertTrue(events.isEmpty());
+            assertThrows(CartLimitExceededException.class, () -> fork.addProduct(book, 10));
+        }
+    }
+
+    @Nested
+    @DisplayName("Isolation Tests")
+    class IsolationTests {
+
+        @Test
+        @DisplayName("Should not change the parent when the fork changes")
+        void testForkChangesStayInFork() {
+            Map<Product, Integer> lines = cart.getProductsWithQuantities();
+            double total = cart.getTotal();
+
+            Cart fork = cart.fork();
+            fork.applyDiscount(20.0);
+            fork.addPromotion("Keyboard", 5.0);
+            fork.addProduct(book, 2);
+            fork.updateQuantity(mouse, 7);
+            fork.removeProduct(laptop);
+
+            assertEquals(lines, cart.getProductsWithQuantities());
+            assertEquals(total, cart.getTotal(), 0.0001);
+            assertFalse(cart.containsProduct("Programming Book"));
+            assertFalse(cart.getActivePromotions().containsKey("Keyboard"));
+            assertEquals(2, fork.getQuantity(book));
+            assertEquals(7, fork.getQuantity(mouse));
+        }
+
+        @Test
+        @DisplayName("Should not change the fork when the parent changes")
+        void testParentChangesStayInParent() {
+            Cart fork = cart.fork();
+            double total = fork.getTotal();
+
+            cart.clearCart();
+            cart.clearPromotions();
+
+            assertEquals(3, fork.getUniqueProductCount());
+            assertEquals(total, fork.getTotal(), 0.0001);
+            assertTrue(fork.getActivePromotions().containsKey("Laptop"));
+        }
+
+        @Test
+        @DisplayName("Should keep sibling forks and forks of forks apart")
+        void testManyForks() {
+            Cart first = cart.fork();
+            Cart second = cart.fork();
+            Cart nested = first.fork();
+
+            first.addProduct(book);
+            second.applyDiscount(50.0);
+            nested.removeProduct(mouse);
+
+            assertTrue(first.containsProduct(book));
+            assertFalse(second.containsProduct(book));
+            assertFalse(nested.containsProduct(book));
+            assertEquals(10.0, first.getDiscountPercentage());
+            assertTrue(nested.getTotal() < cart.getTotal());
+            assertTrue(cart.containsProduct(mouse));
+            assertTrue(first.containsProduct(mouse));
+        }
+
+        @Test
+        @DisplayName("Should reprice each cart on its own when a shared price table changes")
+        void testSharedPriceTable() {
+            PriceTable table = new PriceTable();
+            cart.setPriceTable(table);
+            Cart fork = cart.fork();
+            fork.applyDiscount(30.0);
+
+            table.setPrice("Mouse", 1.0);
+
+            assertEquals(1.0, cart.getUnitPrice(mouse));
+            assertEquals(1.0, fork.getUnitPrice(mouse));
+            assertEquals(cart.getSubtotal(), fork.getSubtotal(), 0.0001);
+            assertEquals(cart.getTotal() - cart.getSubtotal() * 0.20, fork.getTotal(), 0.0001);
+        }
+    }
+
+    @Nested
+    @DisplayName("What-If Pricing Tests")
+    class WhatIfTests {
+
+        @Test
+        @DisplayName("Should price a coupon preview without touching the cart")
+        void testCouponPreview() {
+            double before = cart.getTotal();
+            long version = cart.getVersion();
+
+            Cart preview = cart.fork();
+            preview.applyDiscount(15.0);
+
+            double subtotal = cart.getSubtotal();
+            double promotions = cart.getDiscountAmount() - subtotal * cart.getDiscountPercentage() / 100.0;
+            assertEquals(subtotal * 0.85 - promotions, preview.getTotal(), 0.0001);
+            assertEquals(before, cart.getTotal());
+            assertEquals(version, cart.getVersion());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Cart Insertion Order Tests")
+class CartInsertionOrderTest {
+
+    private Cart cart;
+
+    @BeforeEach
+    void setUp() {
+        cart = new Cart();
+        cart.addProduct(TestDataFactory.createMouse());
+        cart.addProduct(TestDataFactory.createLaptop());
+        cart.addProduct(TestDataFactory.createKeyboard());
+    }
+
+    @Nested
+    @DisplayName("Cart View Order Tests")
+    class CartViewOrderTests {
+
+        @Test
+        @DisplayName("Should list items in insertion order")
+        void testItemsOrder() {
+            assertEquals(List.of("Mouse", "Laptop", "Keyboard"), cart.getItems());
+            assertEquals(List.of(TestDataFactory.createMouse(), TestDataFactory.createLaptop(),
+                TestDataFactory.createKeyboard()), new ArrayList<>(cart.getProductsWithQuantities().keySet()));
+        }
+
+        @Test
+        @DisplayName("Should keep a line in place when its quantity changes")
+        void testUpdateKeepsPosition() {
+            cart.updateQuantity(TestDataFactory.createMouse(), 5);
+            cart.addProduct(TestDataFactory.createLaptop(), 2);
+            assertEquals(List.of("Mouse", "Laptop", "Keyboard"), cart.getItems());
+        }
+
+        @Test
+        @DisplayName("Should append a line that was removed and added again")
+        void testReAddGoesLast() {
+            cart.removeProduct(TestDataFactory.createMouse());
+            cart.addProduct(TestDataFactory.createMouse());
+            assertEquals(List.of("Laptop", "Keyboard", "Mouse"), cart.getItems());
+        }
+
+        @Test
+        @DisplayName("Should render the summary in insertion order")
+        void testSummaryOrder() {
+            String summary = cart.getCartSummary();
+            int mouse = summary.indexOf("Mouse x1");
+            int laptop = summary.indexOf("Laptop x1");
+            int keyboard = summary.indexOf("Keyboard x1");
+            assertTrue(mouse >= 0 && mouse < laptop && laptop < keyboard, summary);
+        }
+
+        @Test
+        @DisplayName("Should keep order across serialization and merge")
+        void testCodecAndMerge() {
+            assertEquals(cart.getItems(), CartCodec.decode(CartCodec.encode(cart)).getItems());
+
+            Cart target = new Cart();
+            target.addProduct(TestDataFactory.createBook());
+            target.mergeFrom(cart, MergePolicy.SUM);
+            assertEquals(List.of("Programming Book", "Mouse", "Laptop", "Keyboard"), target.getItems());
+        }
+    }
+
+    @Nested
+    @DisplayName("Line Table Tests")
+    class LineTableTests {
+
+        @Test
+        @DisplayName("Should match LinkedHashMap under random puts and removes")
+        void testAgainstLinkedHashMap() {
+            List<Product> products = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                products.add(new Product("P" + i, i, "General"));
+            }
+            LineTable table = new LineTable();
+            Map<Product, Integer> expected = new LinkedHashMap<>();
+            Random random = new Random(11);
+
+            for (int step = 0; step < 20_000; step++) {
+                Product product = products.get(random.nextInt(products.size()));
+                if (random.nextInt(3) == 0) {
+                    assertEquals(expected.remove(product) != null, table.remove(product));
+                } else {
+                    int quantity = 1 + random.nextInt(9);
+                    table.put(product, quantity);
+                    expected.put(product, quantity);
+                }
+            }
+
+            assertEquals(expected.size(), table.size());
+            assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(table.toMap().entrySet()));
+            for (Product product : products) {
+                assertEquals(expected.getOrDefault(product, 0).intValue(), table.get(product, 0));
+            }
+        }
+
+        @Test
+        @DisplayName("Should compact tombstones without reordering")
+        void testCompaction() {
+            LineTable table = new LineTable();
+            for (int i = 0; i < 100; i++) {
+                table.put(new Product("P" + i, 1.0, "General"), i + 1);
+            }
+            for (int i = 0; i < 99; i += 2) {
+                table.remove(new Product("P" + i, 1.0, "General"));
+            }
+            for (int i = 0; i < 20; i++) {
+                table.remove(new Product("P" + (i * 2 + 1), 1.0, "General"));
+            }
+
+            assertEquals(30, table.size());
+            assertTrue(table.slotCount() < 100, "tombstones should have been compacted");
+            int previous = 0;
+            for (int i = 0; i < table.slotCount(); i++) {
+                if (table.productAt(i) != null) {
+                    assertTrue(table.quantityAt(i) > previous);
+                    previous = table.quantityAt(i);
+                }
+            }
+
+            table.clear();
+            assertTrue(table.isEmpty());
+            assertEquals(0, table.slotCount());
+        }
+    }
+}
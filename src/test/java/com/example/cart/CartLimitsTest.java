@@ -0,0 +1,156 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Cart Limits Tests")
+class CartLimitsTest {
+
+    private Cart cart;
+    private Product laptop;
+    private Product mouse;
+
+    @BeforeEach
+    void setUp() {
+        cart = new Cart();
+        laptop = TestDataFactory.createLaptop();
+        mouse = TestDataFactory.createMouse();
+    }
+
+    @Nested
+    @DisplayName("Overflow Tests")
+    class OverflowTests {
+
+        @Test
+        @DisplayName("Should reject quantity overflow without changing the cart")
+        void testOverflow() {
+            cart.addProduct(mouse, Integer.MAX_VALUE - 1);
+            assertThrows(CartLimitExceededException.class, () -> cart.addProduct(mouse, 2));
+            assertEquals(Integer.MAX_VALUE - 1, cart.getQuantity(mouse));
+        }
+
+        @Test
+        @DisplayName("Should count units beyond int range without wrapping")
+        void testLargeItemCount() {
+            cart.addProduct(mouse, Integer.MAX_VALUE);
+            cart.addProduct(laptop, 10);
+            assertEquals(Integer.MAX_VALUE, cart.getItemCount());
+        }
+
+        @Test
+        @DisplayName("Should reject an overflowing merge")
+        void testMergeOverflow() {
+            cart.addProduct(mouse, Integer.MAX_VALUE);
+            Cart other = new Cart();
+            other.addProduct(mouse, 1);
+            assertThrows(CartLimitExceededException.class, () -> cart.mergeFrom(other, MergePolicy.SUM));
+        }
+    }
+
+    @Nested
+    @DisplayName("Limit Enforcement Tests")
+    class LimitEnforcementTests {
+
+        @Test
+        @DisplayName("Should enforce the per-line quantity limit")
+        void testLineQuantity() {
+            cart.setLimits(new CartLimits(10, 100, 1_000, 1e9));
+            cart.addProduct(mouse, 10);
+            assertThrows(CartLimitExceededException.class, () -> cart.addProduct(mouse, 1));
+            assertThrows(CartLimitExceededException.class, () -> cart.updateQuantity(mouse, 11));
+            assertEquals(10, cart.getQuantity(mouse));
+        }
+
+        @Test
+        @DisplayName("Should enforce the line count limit")
+        void testLines() {
+            cart.setLimits(new CartLimits(100, 2, 1_000, 1e9));
+            cart.addProduct(mouse);
+            cart.addProduct(laptop);
+            assertThrows(CartLimitExceededException.class, () -> cart.addProduct(TestDataFactory.createBook()));
+            assertThrows(CartLimitExceededException.class, () -> cart.addProduct("Sticker"));
+            assertTrue(cart.addProduct(mouse, 5), "existing lines can still grow");
+            assertEquals(2, cart.getUniqueProductCount());
+        }
+
+        @Test
+        @DisplayName("Should enforce the unit limit")
+        void testUnits() {
+            cart.setLimits(new CartLimits(100, 100, 5, 1e9));
+            cart.addProduct(mouse, 3);
+            cart.addProduct(laptop, 2);
+            assertThrows(CartLimitExceededException.class, () -> cart.addProduct(mouse, 1));
+            cart.removeProductUnit(laptop);
+            assertTrue(cart.addProduct(mouse, 1));
+            assertEquals(5, cart.getItemCount());
+        }
+
+        @Test
+        @DisplayName("Should enforce the subtotal limit with catalog prices")
+        void testSubtotal() {
+            cart.setLimits(new CartLimits(100, 100, 1_000, 1_500.0));
+            cart.addProduct(laptop);
+            assertThrows(CartLimitExceededException.class, () -> cart.addProduct(laptop));
+
+            PriceTable table = new PriceTable();
+            table.setPrice("Laptop", 500.0);
+            cart.setPriceTable(table);
+            assertTrue(cart.addProduct(laptop, 2));
+            assertThrows(CartLimitExceededException.class, () -> cart.addProduct(laptop));
+
+            table.setPrice("Mouse", 1_000.0);
+            assertThrows(CartLimitExceededException.class, () -> cart.addProduct(mouse));
+        }
+
+        @Test
+        @DisplayName("Should reject a merge that breaks a limit without applying any of it")
+        void testMergeLimits() {
+            cart.setLimits(new CartLimits(100, 2, 1_000, 1e9));
+            cart.addProduct(mouse);
+            Cart other = TestDataFactory.createCartWithMultipleProducts();
+
+            assertThrows(CartLimitExceededException.class, () -> cart.mergeFrom(other, MergePolicy.SUM));
+            assertEquals(1, cart.getUniqueProductCount());
+            assertEquals(1, cart.getItemCount());
+        }
+
+        @Test
+        @DisplayName("Should let an over-limit cart shrink after limits are lowered")
+        void testLoweredLimits() {
+            cart.addProduct(mouse, 50);
+            cart.setLimits(new CartLimits(10, 1, 10, 100.0));
+            assertTrue(cart.updateQuantity(mouse, 20));
+            assertTrue(cart.removeProductUnit(mouse));
+            assertThrows(CartLimitExceededException.class, () -> cart.updateQuantity(mouse, 30));
+        }
+
+        @Test
+        @DisplayName("Should keep the item count in step with every mutation")
+        void testItemCountCounter() {
+            cart.addProduct(mouse, 3);
+            cart.addProduct(laptop, 2);
+            cart.updateQuantity(mouse, 1);
+            cart.removeProduct(laptop);
+            cart.addProduct("Sticker");
+            assertEquals(2, cart.getItemCount());
+            cart.mergeFrom(TestDataFactory.createCartWithMultipleProducts(), MergePolicy.SUM);
+            assertEquals(6, cart.getItemCount());
+            cart.clearCart();
+            assertEquals(0, cart.getItemCount());
+            assertEquals(4, CartCodec.decode(CartCodec.encode(TestDataFactory.createCartWithMultipleProducts()))
+                .getItemCount());
+        }
+
+        @Test
+        @DisplayName("Should reject invalid limits")
+        void testInvalidLimits() {
+            assertThrows(IllegalArgumentException.class, () -> new CartLimits(0, 1, 1, 1.0));
+            assertThrows(IllegalArgumentException.class, () -> new CartLimits(1, 1, 1, 0.0));
+            assertThrows(IllegalArgumentException.class, () -> cart.setLimits(null));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Cart Line Batch Tests")
+class CartLineBatchTest {
+
+    private CartLineBatch batch;
+    private List<Cart> carts;
+
+    @BeforeEach
+    void setUp() {
+        carts = List.of(
+            TestDataFactory.createCartWithPromotions(),
+            TestDataFactory.createCartWithLargeInventory(),
+            TestDataFactory.createCartWithSingleProduct(),
+            new Cart());
+        batch = new CartLineBatch();
+        batch.addCarts(carts);
+    }
+
+    @Nested
+    @DisplayName("Aggregate Kernel Tests")
+    class AggregateKernelTests {
+
+        @Test
+        @DisplayName("Should count lines and carts")
+        void testCounts() {
+            assertEquals(4, batch.getCartCount());
+            assertEquals(3 + 50 + 1, batch.getLineCount());
+        }
+
+        @Test
+        @DisplayName("Should match cart subtotals and totals")
+        void testRevenueMatchesCarts() {
+            double subtotal = 0;
+            double total = 0;
+            for (Cart cart : carts) {
+                subtotal += cart.getSubtotal();
+                total += cart.getTotal();
+            }
+            assertEquals(subtotal, batch.grossRevenue(), 0.001);
+            assertEquals(total, batch.netRevenue(), 0.001);
+        }
+
+        @Test
+        @DisplayName("Should group revenue by category")
+        void testRevenueByCategory() {
+            Map<String, Double> byCategory = batch.revenueByCategory();
+            double sum = byCategory.values().stream().mapToDouble(Double::doubleValue).sum();
+
+            assertEquals(batch.netRevenue(), sum, 0.001);
+            assertTrue(byCategory.containsKey("Electronics"));
+            assertTrue(byCategory.containsKey("Category0"));
+            assertFalse(byCategory.containsKey("Books"));
+        }
+
+        @Test
+        @DisplayName("Should compute average basket size in units")
+        void testAverageBasketSize() {
+            int units = carts.stream().mapToInt(Cart::getItemCount).sum();
+            assertEquals(units / 4.0, batch.averageBasketSize(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should compute promotion uptake over lines")
+        void testPromotionUptake() {
+            assertEquals(2.0 / batch.getLineCount(), batch.promotionUptake(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should return top products by revenue in descending order")
+        void testTopProducts() {
+            List<Map.Entry<String, Double>> top = batch.topProductsByRevenue(3);
+            assertEquals(3, top.size());
+            assertEquals("Product49", top.get(0).getKey());
+            assertEquals(490.0 * 10, top.get(0).getValue(), 0.001);
+            assertTrue(top.get(1).getValue() >= top.get(2).getValue());
+            assertTrue(batch.topProductsByRevenue(0).isEmpty());
+            assertEquals(53, batch.topProductsByRevenue(1000).size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Edge Case Tests")
+    class EdgeCaseTests {
+
+        @Test
+        @DisplayName("Should handle an empty batch")
+        void testEmptyBatch() {
+            CartLineBatch empty = new CartLineBatch();
+            assertEquals(0.0, empty.grossRevenue());
+            assertEquals(0.0, empty.averageBasketSize());
+            assertEquals(0.0, empty.promotionUptake());
+            assertTrue(empty.revenueByCategory().isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should keep null categories")
+        void testNullCategory() {
+            Cart cart = new Cart();
+            cart.addProduct(new Product("Item", 10.0, null), 2);
+            CartLineBatch single = new CartLineBatch();
+            single.addCart(cart);
+            assertEquals(20.0, single.revenueByCategory().get(null), 0.001);
+        }
+
+        @Test
+        @DisplayName("Should grow past initial capacity")
+        void testGrowth() {
+            CartLineBatch large = new CartLineBatch();
+            for (int i = 0; i < 100; i++) {
+                large.addCart(TestDataFactory.createCartWithLargeInventory());
+            }
+            assertEquals(5000, large.getLineCount());
+            assertEquals(100, large.getCartCount());
+        }
+
+        @Test
+        @DisplayName("Should reject invalid arguments")
+        void testInvalidArguments() {
+            assertThrows(IllegalArgumentException.class, () -> batch.addCart(null));
+            assertThrows(IllegalArgumentException.class, () -> batch.topProductsByRevenue(-1));
+        }
+    }
+}
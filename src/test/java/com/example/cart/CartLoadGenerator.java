@@ -0,0 +1,387 @@
+package com.example.cart;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Drives many carts from several threads with a production-like operation mix and reports
+// throughput, latency percentiles and allocation rate. Not a unit test: run it by hand, e.g.
+//     mvn -q test-compile
+//     java -cp target/classes:target/test-classes com.example.cart.CartLoadGenerator \
+//         threads=16 carts=100000 operations=2000000 cartSize=8 promotionDensity=0.1
+// Every Config field can be given as name=value; the mix uses e.g. mix=ADD:30,TOTAL:50,SUMMARY:5.
+public class CartLoadGenerator {
+
+    public enum Operation {
+        ADD,
+        UPDATE,
+        REMOVE,
+        TOTAL,
+        ITEM_COUNT,
+        SUMMARY
+    }
+
+    public static final class Config {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int carts = 10_000;
+        long operations = 1_000_000;
+        int catalogSize = 5_000;
+        // Mean number of lines per pre-filled cart (geometric distribution)
+        double cartSize = 6.0;
+        // Share of catalog products with a site-wide promotion
+        double promotionDensity = 0.05;
+        long seed = 42;
+        final EnumMap<Operation, Integer> mix = new EnumMap<>(Operation.class);
+
+        public Config() {
+            mix.put(Operation.ADD, 25);
+            mix.put(Operation.UPDATE, 10);
+            mix.put(Operation.REMOVE, 5);
+            mix.put(Operation.TOTAL, 45);
+            mix.put(Operation.ITEM_COUNT, 10);
+            mix.put(Operation.SUMMARY, 5);
+        }
+
+        public Config threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public Config carts(int carts) {
+            this.carts = carts;
+            return this;
+        }
+
+        public Config operations(long operations) {
+            this.operations = operations;
+            return this;
+        }
+
+        public Config catalogSize(int catalogSize) {
+            this.catalogSize = catalogSize;
+            return this;
+        }
+
+        public Config cartSize(double cartSize) {
+            this.cartSize = cartSize;
+            return this;
+        }
+
+        public Config promotionDensity(double promotionDensity) {
+            this.promotionDensity = promotionDensity;
+            return this;
+        }
+
+        public Config seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        // Relative weight of an operation in the mix; 0 disables it
+        public Config weight(Operation operation, int weight) {
+            mix.put(operation, weight);
+            return this;
+        }
+
+        private void validate() {
+            if (threads <= 0 || carts <= 0 || operations <= 0 || catalogSize <= 0) {
+                throw new IllegalArgumentException("Threads, carts, operations and catalog size must be positive");
+            }
+            if (cartSize < 0 || promotionDensity < 0 || promotionDensity > 1) {
+                throw new IllegalArgumentException("Invalid cart size or promotion density");
+            }
+            int total = 0;
+            for (int weight : mix.values()) {
+                if (weight < 0) {
+                    throw new IllegalArgumentException("Operation weights cannot be negative");
+                }
+                total += weight;
+            }
+            if (total == 0) {
+                throw new IllegalArgumentException("Operation mix cannot be empty");
+            }
+        }
+    }
+
+    public static final class Report {
+        private final long operations;
+        private final long elapsedNanos;
+        private final long[] sortedLatencies;
+        private final long allocatedBytes;
+        private final EnumMap<Operation, Long> counts;
+
+        private Report(long elapsedNanos, long[] sortedLatencies, long allocatedBytes, EnumMap<Operation, Long> counts) {
+            this.operations = sortedLatencies.length;
+            this.elapsedNanos = elapsedNanos;
+            this.sortedLatencies = sortedLatencies;
+            this.allocatedBytes = allocatedBytes;
+            this.counts = counts;
+        }
+
+        public long getOperations() {
+            return operations;
+        }
+
+        public double getThroughputPerSecond() {
+            return operations / (elapsedNanos / 1e9);
+        }
+
+        // Latency at a percentile between 0 and 100, in nanoseconds
+        public long getLatencyNanos(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, Math.min(index, sortedLatencies.length - 1))];
+        }
+
+        // Bytes allocated by the worker threads, or -1 if the JVM cannot measure it
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public double getAllocationRateBytesPerSecond() {
+            return allocatedBytes < 0 ? -1 : allocatedBytes / (elapsedNanos / 1e9);
+        }
+
+        public long getCount(Operation operation) {
+            return counts.getOrDefault(operation, 0L);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("operations: %d in %.2f s%n"
+                    + "throughput: %.0f ops/s%n"
+                    + "latency:    p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us%n"
+                    + "allocation: %.1f MB/s (%.1f bytes/op)%n"
+                    + "mix:        %s",
+                operations, elapsedNanos / 1e9, getThroughputPerSecond(),
+                getLatencyNanos(50) / 1e3, getLatencyNanos(99) / 1e3, getLatencyNanos(99.9) / 1e3,
+                getLatencyNanos(100) / 1e3,
+                getAllocationRateBytesPerSecond() / (1024 * 1024), (double) allocatedBytes / Math.max(1, operations),
+                counts);
+        }
+    }
+
+    private final Config config;
+    private final Product[] catalog;
+    private final Cart[] carts;
+    private final Operation[] mixTable;
+
+    public CartLoadGenerator(Config config) {
+        if (config == null) {
+            throw new IllegalArgumentException("Config cannot be null");
+        }
+        config.validate();
+        this.config = config;
+
+        Random random = new Random(config.seed);
+        catalog = new Product[config.catalogSize];
+        PromotionCatalog promotions = new PromotionCatalog();
+        Map<String, Double> sitewide = new HashMap<>();
+        for (int i = 0; i < catalog.length; i++) {
+            double price = Math.round((1 + random.nextDouble() * 499) * 100) / 100.0;
+            catalog[i] = new Product(i + 1, "Product" + i, price, "Category" + (i % 20));
+            if (random.nextDouble() < config.promotionDensity) {
+                sitewide.put(catalog[i].getName(), Math.round(price * 10) / 100.0);
+            }
+        }
+        promotions.publish(sitewide);
+
+        carts = new Cart[config.carts];
+        for (int i = 0; i < carts.length; i++) {
+            Cart cart = new Cart();
+            cart.setPromotionCatalog(promotions);
+            int lines = geometric(random, config.cartSize);
+            for (int line = 0; line < lines; line++) {
+                cart.addProduct(catalog[random.nextInt(catalog.length)], 1 + random.nextInt(3));
+            }
+            carts[i] = cart;
+        }
+
+        List<Operation> table = new ArrayList<>();
+        for (Map.Entry<Operation, Integer> entry : config.mix.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                table.add(entry.getKey());
+            }
+        }
+        mixTable = table.toArray(new Operation[0]);
+    }
+
+    public Report run() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(config.threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Worker>> futures = new ArrayList<>();
+        for (int t = 0; t < config.threads; t++) {
+            long share = config.operations / config.threads + (t < config.operations % config.threads ? 1 : 0);
+            Worker worker = new Worker(share, config.seed + 1 + t, start);
+            futures.add(executor.submit(worker, worker));
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        List<Worker> workers = new ArrayList<>();
+        try {
+            for (Future<Worker> future : futures) {
+                workers.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Load worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - began;
+
+        int total = 0;
+        for (Worker worker : workers) {
+            total += worker.latencies.length;
+        }
+        long[] latencies = new long[total];
+        long allocated = 0;
+        EnumMap<Operation, Long> counts = new EnumMap<>(Operation.class);
+        int offset = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.latencies.length);
+            offset += worker.latencies.length;
+            allocated = allocated < 0 || worker.allocatedBytes < 0 ? -1 : allocated + worker.allocatedBytes;
+            for (Operation operation : Operation.values()) {
+                counts.merge(operation, worker.counts[operation.ordinal()], Long::sum);
+            }
+        }
+        Arrays.sort(latencies);
+        return new Report(elapsed, latencies, allocated, counts);
+    }
+
+    private final class Worker implements Runnable {
+        private final long[] latencies;
+        private final long[] counts = new long[Operation.values().length];
+        private final Random random;
+        private final CountDownLatch start;
+        private long allocatedBytes = -1;
+
+        private Worker(long operations, long seed, CountDownLatch start) {
+            this.latencies = new long[Math.toIntExact(operations)];
+            this.random = new Random(seed);
+            this.start = start;
+        }
+
+        @Override
+        public void run() {
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            long allocatedBefore = allocatedBytes();
+            for (int i = 0; i < latencies.length; i++) {
+                Cart cart = carts[random.nextInt(carts.length)];
+                Product product = catalog[random.nextInt(catalog.length)];
+                Operation operation = mixTable[random.nextInt(mixTable.length)];
+
+                long began = System.nanoTime();
+                perform(operation, cart, product);
+                latencies[i] = System.nanoTime() - began;
+                counts[operation.ordinal()]++;
+            }
+            long allocatedAfter = allocatedBytes();
+            if (allocatedBefore >= 0 && allocatedAfter >= 0) {
+                allocatedBytes = allocatedAfter - allocatedBefore;
+            }
+        }
+
+        private void perform(Operation operation, Cart cart, Product product) {
+            switch (operation) {
+                case ADD:
+                    cart.addProduct(product, 1 + random.nextInt(3));
+                    break;
+                case UPDATE:
+                    cart.updateQuantity(product, random.nextInt(6));
+                    break;
+                case REMOVE:
+                    cart.removeProduct(product);
+                    break;
+                case TOTAL:
+                    cart.getTotal();
+                    break;
+                case ITEM_COUNT:
+                    cart.getItemCount();
+                    break;
+                case SUMMARY:
+                    cart.getCartSummary();
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown operation: " + operation);
+            }
+        }
+    }
+
+    private static int geometric(Random random, double mean) {
+        if (mean <= 0) {
+            return 0;
+        }
+        double p = 1.0 / (mean + 1);
+        return (int) Math.floor(Math.log(1 - random.nextDouble()) / Math.log(1 - p));
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Config config = new Config();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected name=value, got: " + arg);
+            }
+            String name = arg.substring(0, separator);
+            String value = arg.substring(separator + 1);
+            switch (name) {
+                case "threads":
+                    config.threads(Integer.parseInt(value));
+                    break;
+                case "carts":
+                    config.carts(Integer.parseInt(value));
+                    break;
+                case "operations":
+                    config.operations(Long.parseLong(value));
+                    break;
+                case "catalogSize":
+                    config.catalogSize(Integer.parseInt(value));
+                    break;
+                case "cartSize":
+                    config.cartSize(Double.parseDouble(value));
+                    break;
+                case "promotionDensity":
+                    config.promotionDensity(Double.parseDouble(value));
+                    break;
+                case "seed":
+                    config.seed(Long.parseLong(value));
+                    break;
+                case "mix":
+                    for (Operation operation : Operation.values()) {
+                        config.weight(operation, 0);
+                    }
+                    for (String part : value.split(",")) {
+                        String[] weight = part.split(":");
+                        config.weight(Operation.valueOf(weight[0].trim()), Integer.parseInt(weight[1].trim()));
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + name);
+            }
+        }
+
+        System.out.println(new CartLoadGenerator(config).run());
+    }
+}
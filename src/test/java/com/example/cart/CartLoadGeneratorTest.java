@@ -0,0 +1,64 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Cart Load Generator Tests")
+class CartLoadGeneratorTest {
+
+    private static CartLoadGenerator.Config smallConfig() {
+        return new CartLoadGenerator.Config()
+            .threads(4)
+            .carts(200)
+            .operations(20_000)
+            .catalogSize(100)
+            .cartSize(5)
+            .promotionDensity(0.2);
+    }
+
+    @Test
+    @DisplayName("Should run the configured number of operations and report percentiles")
+    void testSmallRun() throws InterruptedException {
+        CartLoadGenerator.Report report = new CartLoadGenerator(smallConfig()).run();
+
+        assertEquals(20_000, report.getOperations());
+        assertTrue(report.getThroughputPerSecond() > 0);
+        assertTrue(report.getLatencyNanos(50) <= report.getLatencyNanos(99));
+        assertTrue(report.getLatencyNanos(99) <= report.getLatencyNanos(99.9));
+        long counted = 0;
+        for (CartLoadGenerator.Operation operation : CartLoadGenerator.Operation.values()) {
+            counted += report.getCount(operation);
+        }
+        assertEquals(20_000, counted);
+        assertTrue(report.toString().contains("p99.9"));
+    }
+
+    @Test
+    @DisplayName("Should only run operations present in the mix")
+    void testCustomMix() throws InterruptedException {
+        CartLoadGenerator.Config config = smallConfig();
+        for (CartLoadGenerator.Operation operation : CartLoadGenerator.Operation.values()) {
+            config.weight(operation, 0);
+        }
+        config.weight(CartLoadGenerator.Operation.TOTAL, 1);
+
+        CartLoadGenerator.Report report = new CartLoadGenerator(config).run();
+        assertEquals(20_000, report.getCount(CartLoadGenerator.Operation.TOTAL));
+        assertEquals(0, report.getCount(CartLoadGenerator.Operation.ADD));
+    }
+
+    @Test
+    @DisplayName("Should reject invalid configurations")
+    void testInvalidConfig() {
+        assertThrows(IllegalArgumentException.class, () -> new CartLoadGenerator(null));
+        assertThrows(IllegalArgumentException.class, () -> new CartLoadGenerator(smallConfig().threads(0)));
+        assertThrows(IllegalArgumentException.class, () -> new CartLoadGenerator(smallConfig().promotionDensity(2)));
+        CartLoadGenerator.Config empty = smallConfig();
+        for (CartLoadGenerator.Operation operation : CartLoadGenerator.Operation.values()) {
+            empty.weight(operation, 0);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new CartLoadGenerator(empty));
+    }
+}
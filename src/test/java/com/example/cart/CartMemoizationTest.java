@@ -0,0 +1,157 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Cart Memoization Tests")
+class CartMemoizationTest {
+
+    private Cart cart;
+    private Product laptop;
+    private Product mouse;
+
+    @BeforeEach
+    void setUp() {
+        cart = TestDataFactory.createCartWithPromotions();
+        laptop = TestDataFactory.createLaptop();
+        mouse = TestDataFactory.createMouse();
+    }
+
+    // Recompute pricing from the public state, independently of the memoized getters
+    private static void assertPricingFresh(Cart cart) {
+        double subtotal = 0.0;
+        double promotions = 0.0;
+        Map<String, Double> active = cart.getActivePromotions();
+        for (Map.Entry<Product, Integer> entry : cart.getProductsWithQuantities().entrySet()) {
+            subtotal += cart.getUnitPrice(entry.getKey()) * entry.getValue();
+            promotions += active.getOrDefault(entry.getKey().getName(), 0.0) * entry.getValue();
+        }
+        double discount = subtotal * cart.getDiscountPercentage() / 100.0 + promotions;
+
+        assertEquals(subtotal, cart.getSubtotal(), 0.0001);
+        assertEquals(discount, cart.getDiscountAmount(), 0.0001);
+        assertEquals(Math.max(0, subtotal - discount), cart.getTotal(), 0.0001);
+    }
+
+    private void assertFreshAfter(Consumer<Cart> mutation) {
+        cart.getTotal();
+        cart.getSubtotal();
+        cart.getDiscountAmount();
+        long version = cart.getVersion();
+
+        mutation.accept(cart);
+
+        assertTrue(cart.getVersion() > version, "mutation should bump the version");
+        assertPricingFresh(cart);
+    }
+
+    @Nested
+    @DisplayName("Cache Hit Tests")
+    class CacheHitTests {
+
+        @Test
+        @DisplayName("Should return identical values when nothing changed")
+        void testRepeatedReads() {
+            double total = cart.getTotal();
+            long version = cart.getVersion();
+            for (int i = 0; i < 10; i++) {
+                assertEquals(total, cart.getTotal());
+            }
+            assertEquals(version, cart.getVersion());
+            assertPricingFresh(cart);
+        }
+
+        @Test
+        @DisplayName("Should price an empty cart")
+        void testEmptyCart() {
+            Cart empty = new Cart();
+            assertEquals(0.0, empty.getTotal());
+            assertPricingFresh(empty);
+        }
+    }
+
+    @Nested
+    @DisplayName("Invalidation Tests")
+    class InvalidationTests {
+
+        @Test
+        @DisplayName("Should invalidate on addProduct variants")
+        void testAddProduct() {
+            assertFreshAfter(c -> c.addProduct(mouse));
+            assertFreshAfter(c -> c.addProduct(TestDataFactory.createBook(), 3));
+            assertFreshAfter(c -> c.addProduct("Sticker"));
+            assertFreshAfter(c -> c.addProductIfVersion(laptop, 1, c.getVersion()));
+        }
+
+        @Test
+        @DisplayName("Should invalidate on id-keyed mutations")
+        void testIdKeyed() {
+            ProductCatalog catalog = new ProductCatalog();
+            catalog.register(new Product(7L, "Monitor", 199.99, "Electronics"));
+            cart.setCatalog(catalog);
+
+            assertFreshAfter(c -> c.addProduct(7L, 2));
+            assertFreshAfter(c -> c.updateQuantity(7L, 5));
+            assertFreshAfter(c -> c.removeProduct(7L));
+        }
+
+        @Test
+        @DisplayName("Should invalidate on quantity updates and removals")
+        void testUpdatesAndRemovals() {
+            assertFreshAfter(c -> c.updateQuantity(mouse, 7));
+            assertFreshAfter(c -> c.updateQuantityIfVersion(mouse, 4, c.getVersion()));
+            assertFreshAfter(c -> c.removeProductUnit(mouse));
+            assertFreshAfter(c -> c.removeProduct(mouse));
+            assertFreshAfter(c -> c.removeProduct("Keyboard"));
+            assertFreshAfter(Cart::clearCart);
+        }
+
+        @Test
+        @DisplayName("Should invalidate on discount and promotion changes")
+        void testPromotions() {
+            assertFreshAfter(c -> c.applyDiscount(25.0));
+            assertFreshAfter(c -> c.addPromotion("Keyboard", 10.0));
+            assertFreshAfter(c -> c.removePromotion("Laptop"));
+            assertFreshAfter(Cart::clearPromotions);
+        }
+
+        @Test
+        @DisplayName("Should invalidate on merge")
+        void testMerge() {
+            assertFreshAfter(c -> c.mergeFrom(TestDataFactory.createCartWithMultipleProducts(), MergePolicy.SUM));
+        }
+
+        @Test
+        @DisplayName("Should invalidate when the price table changes")
+        void testPriceTable() {
+            PriceTable table = new PriceTable();
+            assertFreshAfter(c -> c.setPriceTable(table));
+
+            double before = cart.getTotal();
+            table.setPrice("Laptop", 10.0);
+            assertNotEquals(before, cart.getTotal());
+            assertPricingFresh(cart);
+
+            assertFreshAfter(c -> c.setPriceTable(null));
+        }
+
+        @Test
+        @DisplayName("Should not return stale totals across interleaved reads and writes")
+        void testInterleaved() {
+            for (int i = 1; i <= 20; i++) {
+                cart.getTotal();
+                cart.updateQuantity(mouse, i);
+                assertPricingFresh(cart);
+                cart.applyDiscount(i);
+                assertPricingFresh(cart);
+            }
+        }
+    }
+}
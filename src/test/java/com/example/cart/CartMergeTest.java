@@ -0,0 +1,180 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Cart Merge Tests")
+class CartMergeTest {
+
+    private Cart saved;
+    private Cart guest;
+    private Product laptop;
+    private Product mouse;
+
+    @BeforeEach
+    void setUp() {
+        saved = new Cart();
+        guest = new Cart();
+        laptop = TestDataFactory.createLaptop();
+        mouse = TestDataFactory.createMouse();
+    }
+
+    @Nested
+    @DisplayName("Quantity Policy Tests")
+    class QuantityPolicyTests {
+
+        @BeforeEach
+        void fillCarts() {
+            saved.addProduct(laptop, 1);
+            saved.addProduct(mouse, 3);
+            guest.addProduct(mouse, 2);
+            guest.addProduct(TestDataFactory.createBook(), 1);
+        }
+
+        @Test
+        @DisplayName("Should sum quantities of shared products")
+        void testSumPolicy() {
+            saved.mergeFrom(guest, MergePolicy.SUM);
+            assertEquals(5, saved.getQuantity(mouse));
+            assertEquals(1, saved.getQuantity(laptop));
+            assertEquals(1, saved.getQuantity(TestDataFactory.createBook()));
+            assertEquals(3, saved.getUniqueProductCount());
+        }
+
+        @Test
+        @DisplayName("Should keep the larger quantity")
+        void testMaxPolicy() {
+            saved.mergeFrom(guest, MergePolicy.MAX);
+            assertEquals(3, saved.getQuantity(mouse));
+        }
+
+        @Test
+        @DisplayName("Should take the incoming quantity")
+        void testPreferNewerPolicy() {
+            saved.mergeFrom(guest, MergePolicy.PREFER_NEWER);
+            assertEquals(2, saved.getQuantity(mouse));
+        }
+
+        @Test
+        @DisplayName("Should leave the merged-in cart untouched")
+        void testSourceUnchanged() {
+            saved.mergeFrom(guest, MergePolicy.SUM);
+            assertEquals(2, guest.getQuantity(mouse));
+            assertEquals(2, guest.getUniqueProductCount());
+        }
+
+        @Test
+        @DisplayName("Should match a line-by-line merge for SUM")
+        void testSumMatchesLoop() {
+            Cart expected = new Cart();
+            expected.addProduct(laptop, 1);
+            expected.addProduct(mouse, 3);
+            guest.getProductsWithQuantities().forEach(expected::addProduct);
+
+            saved.mergeFrom(guest, MergePolicy.SUM);
+            assertEquals(expected.getProductsWithQuantities(), saved.getProductsWithQuantities());
+            assertEquals(expected.getTotal(), saved.getTotal(), 0.001);
+        }
+    }
+
+    @Nested
+    @DisplayName("Legacy Item Tests")
+    class LegacyItemTests {
+
+        @Test
+        @DisplayName("Should skip legacy name-only item already present by name")
+        void testLegacyDuplicateSkipped() {
+            saved.addProduct(laptop);
+            guest.addProduct("Laptop");
+
+            saved.mergeFrom(guest, MergePolicy.SUM);
+            assertEquals(1, saved.getUniqueProductCount());
+            assertEquals(999.99, saved.getSubtotal(), 0.001);
+        }
+
+        @Test
+        @DisplayName("Should add legacy item when name is new")
+        void testLegacyNewNameAdded() {
+            guest.addProduct("Gift Card");
+            saved.mergeFrom(guest, MergePolicy.SUM);
+            assertTrue(saved.containsProduct("Gift Card"));
+        }
+
+        @Test
+        @DisplayName("Should not duplicate legacy item present in both carts")
+        void testLegacyInBothCarts() {
+            saved.addProduct("Gift Card");
+            guest.addProduct("Gift Card");
+            saved.mergeFrom(guest, MergePolicy.MAX);
+            assertEquals(1, saved.getItems().size());
+            assertEquals(1, saved.getItemCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Promotion Merge Tests")
+    class PromotionMergeTests {
+
+        @Test
+        @DisplayName("Should union promotions and keep the larger amount")
+        void testPromotionsMax() {
+            saved.addPromotion("Laptop", 50.0);
+            guest.addPromotion("Laptop", 30.0);
+            guest.addPromotion("Mouse", 5.0);
+
+            saved.mergeFrom(guest, MergePolicy.SUM);
+            assertEquals(50.0, saved.getActivePromotions().get("Laptop"), 0.001);
+            assertEquals(5.0, saved.getActivePromotions().get("Mouse"), 0.001);
+        }
+
+        @Test
+        @DisplayName("Should prefer incoming promotions and discount for PREFER_NEWER")
+        void testPromotionsPreferNewer() {
+            saved.addPromotion("Laptop", 50.0);
+            saved.applyDiscount(20.0);
+            guest.addPromotion("Laptop", 30.0);
+            guest.applyDiscount(5.0);
+
+            saved.mergeFrom(guest, MergePolicy.PREFER_NEWER);
+            assertEquals(30.0, saved.getActivePromotions().get("Laptop"), 0.001);
+            assertEquals(5.0, saved.getDiscountPercentage(), 0.001);
+        }
+
+        @Test
+        @DisplayName("Should keep larger percentage discount")
+        void testDiscountMax() {
+            saved.applyDiscount(5.0);
+            guest.applyDiscount(15.0);
+            saved.mergeFrom(guest, MergePolicy.MAX);
+            assertEquals(15.0, saved.getDiscountPercentage(), 0.001);
+        }
+    }
+
+    @Nested
+    @DisplayName("Merge Validation Tests")
+    class MergeValidationTests {
+
+        @Test
+        @DisplayName("Should reject null arguments and self merge")
+        void testInvalidMerge() {
+            assertThrows(IllegalArgumentException.class, () -> saved.mergeFrom(null, MergePolicy.SUM));
+            assertThrows(IllegalArgumentException.class, () -> saved.mergeFrom(guest, null));
+            assertThrows(IllegalArgumentException.class, () -> saved.mergeFrom(saved, MergePolicy.SUM));
+        }
+
+        @Test
+        @DisplayName("Should bump version exactly once")
+        void testSingleVersionBump() {
+            guest.addProduct(laptop);
+            guest.addProduct(mouse);
+            long version = saved.getVersion();
+
+            saved.mergeFrom(guest, MergePolicy.SUM);
+            assertEquals(version + 1, saved.getVersion());
+        }
+    }
+}
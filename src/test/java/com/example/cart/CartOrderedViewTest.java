@@ -0,0 +1,131 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Cart Ordered View Tests")
+class CartOrderedViewTest {
+
+    private Cart cart;
+    private Product laptop;
+    private Product mouse;
+    private Product keyboard;
+
+    @BeforeEach
+    void setUp() {
+        cart = TestDataFactory.createCartWithMultipleProducts();
+        laptop = TestDataFactory.createLaptop();
+        mouse = TestDataFactory.createMouse();
+        keyboard = TestDataFactory.createKeyboard();
+    }
+
+    private static List<String> names(List<CartLine> lines) {
+        List<String> names = new ArrayList<>();
+        for (CartLine line : lines) {
+            names.add(line.getProduct().getName());
+        }
+        return names;
+    }
+
+    @Nested
+    @DisplayName("Top-N Tests")
+    class TopNTests {
+
+        @Test
+        @DisplayName("Should return the most expensive lines first")
+        void testTopLines() {
+            List<CartLine> top = cart.getTopLines(2);
+            assertEquals(List.of("Laptop", "Keyboard"), names(top));
+            assertEquals(999.99, top.get(0).getLineTotal(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should return every line when n exceeds the line count")
+        void testTopLinesLargeN() {
+            assertEquals(3, cart.getTopLines(10).size());
+            assertTrue(cart.getTopLines(0).isEmpty());
+            assertTrue(new Cart().getTopLines(5).isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should reject negative n")
+        void testNegativeN() {
+            assertThrows(IllegalArgumentException.class, () -> cart.getTopLines(-1));
+        }
+    }
+
+    @Nested
+    @DisplayName("Incremental Maintenance Tests")
+    class IncrementalMaintenanceTests {
+
+        @Test
+        @DisplayName("Should reorder when quantities change")
+        void testQuantityChange() {
+            cart.getLinesByTotal();
+            cart.updateQuantity(mouse, 40);
+            assertEquals(List.of("Mouse", "Laptop", "Keyboard"), names(cart.getLinesByTotal()));
+
+            cart.removeProduct(mouse);
+            assertEquals(List.of("Laptop", "Keyboard"), names(cart.getLinesByTotal()));
+
+            cart.addProduct(TestDataFactory.createBook(), 2);
+            assertEquals(List.of("Keyboard", "Laptop", "Programming Book"), names(cart.getLinesByName()));
+
+            cart.clearCart();
+            assertTrue(cart.getLinesByTotal().isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should reorder when the price table changes")
+        void testPriceTableChange() {
+            PriceTable table = new PriceTable();
+            cart.setPriceTable(table);
+            assertEquals("Laptop", cart.getTopLines(1).get(0).getProduct().getName());
+
+            table.setPrice("Mouse", 5000.0);
+            CartLine top = cart.getTopLines(1).get(0);
+            assertEquals("Mouse", top.getProduct().getName());
+            assertEquals(5000.0, top.getUnitPrice());
+        }
+
+        @Test
+        @DisplayName("Should match a full sort under random mutations")
+        void testAgainstFullSort() {
+            Random random = new Random(7);
+            List<Product> products = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                products.add(new Product("P" + i, 1 + random.nextInt(500), "General"));
+            }
+            Cart randomCart = new Cart();
+            randomCart.getLinesByTotal();
+
+            for (int step = 0; step < 2_000; step++) {
+                Product product = products.get(random.nextInt(products.size()));
+                if (random.nextInt(4) == 0) {
+                    randomCart.removeProduct(product);
+                } else {
+                    randomCart.addProduct(product, 1 + random.nextInt(3));
+                }
+
+                List<CartLine> expected = new ArrayList<>();
+                randomCart.getProductsWithQuantities().forEach((p, q) -> expected.add(new CartLine(p, q, p.getPrice())));
+                expected.sort(Comparator.comparingDouble(CartLine::getLineTotal).reversed());
+
+                List<CartLine> actual = randomCart.getLinesByTotal();
+                assertEquals(expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i).getLineTotal(), actual.get(i).getLineTotal(), 0.0001);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Cart Product Id Tests")
+class CartProductIdTest {
+
+    private static final long LAPTOP_ID = 1001L;
+    private static final long MOUSE_ID = 1002L;
+
+    private ProductCatalog catalog;
+    private Cart cart;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new ProductCatalog();
+        catalog.register(new Product(LAPTOP_ID, "Laptop", 999.99, "Electronics"));
+        catalog.register(new Product(MOUSE_ID, "Mouse", 29.99, "Electronics"));
+        cart = new Cart();
+        cart.setCatalog(catalog);
+    }
+
+    @Nested
+    @DisplayName("Product Id Identity Tests")
+    class ProductIdIdentityTests {
+
+        @Test
+        @DisplayName("Should default to NO_ID")
+        void testDefaultId() {
+            Product product = TestDataFactory.createLaptop();
+            assertEquals(Product.NO_ID, product.getId());
+            assertFalse(product.hasId());
+        }
+
+        @Test
+        @DisplayName("Should treat products with the same id as equal")
+        void testEqualById() {
+            Product original = new Product(LAPTOP_ID, "Laptop", 999.99, "Electronics");
+            Product repriced = new Product(LAPTOP_ID, "Laptop", 899.99, "Electronics");
+            assertEquals(original, repriced);
+            assertEquals(original.hashCode(), repriced.hashCode());
+        }
+
+        @Test
+        @DisplayName("Should not equal a product without id")
+        void testIdVersusNoId() {
+            assertNotEquals(new Product(LAPTOP_ID, "Laptop", 999.99, "Electronics"),
+                TestDataFactory.createLaptop());
+        }
+
+        @Test
+        @DisplayName("Should reject negative ids")
+        void testNegativeId() {
+            assertThrows(IllegalArgumentException.class, () -> new Product(-1, "Laptop", 1.0, "Electronics"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Id-Keyed Cart Tests")
+    class IdKeyedCartTests {
+
+        @Test
+        @DisplayName("Should add and count products by id")
+        void testAddById() {
+            assertTrue(cart.addProduct(LAPTOP_ID, 2));
+            cart.addProduct(LAPTOP_ID, 1);
+            assertEquals(3, cart.getQuantity(LAPTOP_ID));
+            assertTrue(cart.containsProduct(LAPTOP_ID));
+            assertEquals(999.99 * 3, cart.getSubtotal(), 0.001);
+        }
+
+        @Test
+        @DisplayName("Should share lines between id and Product paths")
+        void testMixedPaths() {
+            cart.addProduct(catalog.get(MOUSE_ID), 2);
+            cart.addProduct(MOUSE_ID, 1);
+            assertEquals(3, cart.getQuantity(catalog.get(MOUSE_ID)));
+            assertEquals(3, cart.getQuantity(MOUSE_ID));
+            assertEquals(1, cart.getUniqueProductCount());
+        }
+
+        @Test
+        @DisplayName("Should update and remove by id")
+        void testUpdateAndRemoveById() {
+            cart.addProduct(LAPTOP_ID, 1);
+            cart.addProduct(MOUSE_ID, 1);
+
+            assertTrue(cart.updateQuantity(MOUSE_ID, 5));
+            assertEquals(5, cart.getQuantity(MOUSE_ID));
+
+            assertTrue(cart.updateQuantity(MOUSE_ID, 0));
+            assertFalse(cart.containsProduct(MOUSE_ID));
+
+            assertTrue(cart.removeProduct(LAPTOP_ID));
+            assertTrue(cart.isEmpty());
+            assertFalse(cart.removeProduct(LAPTOP_ID));
+            assertFalse(cart.updateQuantity(LAPTOP_ID, 2));
+        }
+
+        @Test
+        @DisplayName("Should keep id lookups in sync with name-based removal and clear")
+        void testLegacyRemovalKeepsIdsInSync() {
+            cart.addProduct(LAPTOP_ID, 1);
+            cart.addProduct(MOUSE_ID, 1);
+            cart.removeProduct("Laptop");
+            assertEquals(0, cart.getQuantity(LAPTOP_ID));
+
+            cart.clearCart();
+            assertEquals(0, cart.getQuantity(MOUSE_ID));
+        }
+
+        @Test
+        @DisplayName("Should reject unknown ids and missing catalog")
+        void testInvalidIds() {
+            assertThrows(IllegalArgumentException.class, () -> cart.addProduct(9999L, 1));
+            assertThrows(IllegalArgumentException.class, () -> cart.addProduct(LAPTOP_ID, 0));
+            Cart noCatalog = new Cart();
+            assertThrows(IllegalStateException.class, () -> noCatalog.addProduct(LAPTOP_ID, 1));
+            assertEquals(0, noCatalog.getQuantity(LAPTOP_ID));
+        }
+
+        @Test
+        @DisplayName("Should keep bookkeeping on the stored line when an id-equal product differs")
+        void testRenamedAndRepricedId() {
+            long widgetId = 2001L;
+            catalog.register(new Product(widgetId, "Widget", 10.0, "Office"));
+            CartStore store = new CartStore("n1");
+            store.putCart("s1", cart);
+            cart.setLimits(new CartLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE, 30.0));
+            cart.addProduct(widgetId, 1);
+
+            catalog.register(new Product(widgetId, "Pen", 5.0, "Office"));
+            assertTrue(cart.updateQuantity(widgetId, 3));
+            assertEquals(30.0, cart.getSubtotal(), 0.0001);
+            assertEquals(List.of("s1"), store.getSessionsContaining("Widget"));
+            assertTrue(store.getSessionsContaining("Pen").isEmpty());
+
+            assertTrue(cart.removeProduct(widgetId));
+            assertFalse(cart.containsProduct("Widget"));
+            assertFalse(cart.containsProduct("Pen"));
+            assertTrue(store.getSessionsContaining("Widget").isEmpty());
+            assertEquals(0.0, cart.getSubtotal());
+
+            // The subtotal limit is checked against an exact running subtotal
+            cart.addProduct(new Product(widgetId, "Pen", 5.0, "Office"), 6);
+            assertEquals(30.0, cart.getSubtotal(), 0.0001);
+            assertEquals(List.of("Pen"), cart.getItems());
+        }
+
+        @Test
+        @DisplayName("Should keep ids across serialization")
+        void testCodecKeepsIds() {
+            cart.addProduct(LAPTOP_ID, 2);
+            Cart copy = CartCodec.decode(CartCodec.encode(cart));
+            assertEquals(2, copy.getQuantity(LAPTOP_ID));
+        }
+
+        @Test
+        @DisplayName("Should update and remove existing lines by id without a catalog")
+        void testExistingLinesWithoutCatalog() {
+            cart.addProduct(LAPTOP_ID, 2);
+            cart.addProduct(MOUSE_ID, 1);
+            Cart copy = CartCodec.decode(CartCodec.encode(cart));
+            assertNull(copy.getCatalog());
+
+            assertTrue(copy.updateQuantity(LAPTOP_ID, 3));
+            assertEquals(3, copy.getQuantity(LAPTOP_ID));
+            assertTrue(copy.removeProduct(MOUSE_ID));
+            assertFalse(copy.containsProduct("Mouse"));
+            assertThrows(IllegalStateException.class, () -> copy.addProduct(MOUSE_ID, 1));
+        }
+
+        @Test
+        @DisplayName("Should find lines by id after the line table compacts")
+        void testIdLookupAfterCompaction() {
+            for (long id = 1; id <= 40; id++) {
+                cart.addProduct(new Product(id, "Item " + id, 1.0, "Bulk"));
+            }
+            for (long id = 1; id <= 30; id++) {
+                assertTrue(cart.removeProduct(id));
+            }
+            for (long id = 31; id <= 40; id++) {
+                assertTrue(cart.updateQuantity(id, 2));
+            }
+            assertEquals(20, cart.getItemCount());
+            assertTrue(cart.removeProduct(40L));
+            assertFalse(cart.containsProduct("Item 40"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Primitive Map Tests")
+    class LongIntMapTests {
+
+        @Test
+        @DisplayName("Should match HashMap under random puts and removes")
+        void testAgainstHashMap() {
+            LongIntMap map = new LongIntMap();
+            Map<Long, Integer> expected = new HashMap<>();
+            Random random = new Random(42);
+
+            for (int i = 0; i < 50_000; i++) {
+                long key = random.nextInt(2_000) + 1;
+                if (random.nextBoolean()) {
+                    map.put(key, i);
+                    expected.put(key, i);
+                } else {
+                    assertEquals(expected.remove(key) != null, map.remove(key));
+                }
+            }
+
+            assertEquals(expected.size(), map.size());
+            for (long key = 1; key <= 2_000; key++) {
+                assertEquals(expected.getOrDefault(key, -1).intValue(), map.get(key, -1));
+            }
+        }
+
+        @Test
+        @DisplayName("Should reject zero keys")
+        void testZeroKey() {
+            LongIntMap map = new LongIntMap();
+            assertThrows(IllegalArgumentException.class, () -> map.put(0L, 1));
+            assertFalse(map.containsKey(0L));
+        }
+    }
+}
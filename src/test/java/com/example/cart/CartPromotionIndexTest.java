@@ -0,0 +1,126 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Cart Promotion Index Tests")
+class CartPromotionIndexTest {
+
+    private Cart cart;
+    private Product laptop;
+    private Product mouse;
+
+    @BeforeEach
+    void setUp() {
+        cart = new Cart();
+        laptop = TestDataFactory.createLaptop();
+        mouse = TestDataFactory.createMouse();
+    }
+
+    @Nested
+    @DisplayName("Resolution Tests")
+    class ResolutionTests {
+
+        @Test
+        @DisplayName("Should apply a promotion added before the line")
+        void testPromotionBeforeLine() {
+            cart.addPromotion("Mouse", 5.0);
+            cart.addProduct(mouse, 2);
+            assertEquals(10.0, cart.getDiscountAmount(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should apply a promotion added after the line")
+        void testPromotionAfterLine() {
+            cart.addProduct(mouse, 3);
+            cart.addPromotion("Mouse", 5.0);
+            assertEquals(15.0, cart.getDiscountAmount(), 0.0001);
+
+            cart.addPromotion("Mouse", 2.0);
+            assertEquals(6.0, cart.getDiscountAmount(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should apply one name promotion to every line with that name")
+        void testSameNameLines() {
+            cart.addProduct(mouse, 1);
+            cart.addProduct(new Product("Mouse", 19.99, "Accessories"), 2);
+            cart.addPromotion("Mouse", 1.0);
+            assertEquals(3.0, cart.getDiscountAmount(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should drop discounts when promotions are removed or cleared")
+        void testRemoveAndClear() {
+            cart.addProduct(mouse, 1);
+            cart.addProduct(laptop, 1);
+            cart.addPromotion("Mouse", 5.0);
+            cart.addPromotion("Laptop", 100.0);
+
+            cart.removePromotion("Laptop");
+            assertEquals(5.0, cart.getDiscountAmount(), 0.0001);
+
+            cart.clearPromotions();
+            assertEquals(0.0, cart.getDiscountAmount(), 0.0001);
+
+            cart.addProduct(laptop, 1);
+            assertEquals(0.0, cart.getDiscountAmount(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should not carry a discount onto a re-added line after removal")
+        void testReAddedLine() {
+            cart.addProduct(mouse, 1);
+            cart.addPromotion("Mouse", 5.0);
+            cart.removeProduct(mouse);
+            assertEquals(0.0, cart.getDiscountAmount(), 0.0001);
+
+            cart.addProduct(mouse, 1);
+            assertEquals(5.0, cart.getDiscountAmount(), 0.0001);
+        }
+    }
+
+    @Nested
+    @DisplayName("Transfer Tests")
+    class TransferTests {
+
+        @Test
+        @DisplayName("Should resolve promotions of a merged cart")
+        void testMerge() {
+            cart.addProduct(mouse, 2);
+            Cart guest = new Cart();
+            guest.addProduct(laptop, 1);
+            guest.addPromotion("Mouse", 3.0);
+            guest.addPromotion("Laptop", 50.0);
+
+            cart.mergeFrom(guest, MergePolicy.SUM);
+            assertEquals(56.0, cart.getDiscountAmount(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should resolve promotions after decoding")
+        void testCodec() {
+            cart.addProduct(mouse, 2);
+            cart.addPromotion("Mouse", 3.0);
+            assertEquals(6.0, CartCodec.decode(CartCodec.encode(cart)).getDiscountAmount(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should keep promotions on lines moved by compaction")
+        void testCompaction() {
+            for (int i = 0; i < 40; i++) {
+                cart.addProduct(new Product("P" + i, 10.0, "General"), 1);
+            }
+            cart.addProduct(mouse, 1);
+            cart.addPromotion("Mouse", 4.0);
+            for (int i = 0; i < 40; i++) {
+                cart.removeProduct("P" + i);
+            }
+            assertEquals(4.0, cart.getDiscountAmount(), 0.0001);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Cart Reservation Tests")
+class CartReservationTest {
+
+    private ManualClock clock;
+    private InMemoryInventory inventory;
+    private ReservationBatcher batcher;
+    private Cart cart;
+    private Product laptop;
+    private Product mouse;
+
+    @BeforeEach
+    void setUp() {
+        clock = new ManualClock(Instant.parse("2024-11-29T00:00:00Z"));
+        inventory = new InMemoryInventory();
+        batcher = new ReservationBatcher(inventory, clock, Duration.ofMillis(200), 100);
+        cart = new Cart();
+        cart.setReservations(batcher);
+        laptop = TestDataFactory.createLaptop();
+        mouse = TestDataFactory.createMouse();
+        inventory.setStock(laptop, 10);
+        inventory.setStock(mouse, 100);
+    }
+
+    @Nested
+    @DisplayName("Batching Tests")
+    class BatchingTests {
+
+        @Test
+        @DisplayName("Should coalesce many clicks into one delta per product")
+        void testCoalescing() {
+            for (int i = 0; i < 50; i++) {
+                cart.addProduct(mouse, 1);
+            }
+            cart.addProduct(laptop, 2);
+            assertEquals(0, inventory.getCalls());
+
+            batcher.flush();
+            assertEquals(1, inventory.getCalls());
+            assertEquals(2, inventory.getDeltasReceived());
+            assertEquals(50, inventory.getHeld(mouse));
+            assertEquals(8, inventory.getAvailable(laptop));
+        }
+
+        @Test
+        @DisplayName("Should flush once the time window elapses")
+        void testWindow() {
+            cart.addProduct(mouse, 1);
+            clock.advance(Duration.ofMillis(199));
+            assertFalse(batcher.flushIfDue());
+
+            clock.advance(Duration.ofMillis(1));
+            cart.addProduct(mouse, 1);
+            assertEquals(1, inventory.getCalls());
+            assertEquals(2, inventory.getHeld(mouse));
+            assertFalse(batcher.flushIfDue());
+        }
+
+        @Test
+        @DisplayName("Should flush once the batch holds enough products")
+        void testSizeLimit() {
+            ReservationBatcher small = new ReservationBatcher(inventory, clock, Duration.ofHours(1), 2);
+            Cart other = new Cart();
+            other.setReservations(small);
+            other.addProduct(mouse, 1);
+            other.addProduct(mouse, 1);
+            assertEquals(0, inventory.getCalls());
+            other.addProduct(laptop, 1);
+            assertEquals(1, inventory.getCalls());
+        }
+
+        @Test
+        @DisplayName("Should drop deltas that cancel out")
+        void testCancellation() {
+            cart.addProduct(mouse, 3);
+            cart.removeProduct(mouse);
+            assertEquals(0, batcher.getPending(mouse));
+            batcher.flush();
+            assertEquals(0, inventory.getCalls());
+        }
+    }
+
+    @Nested
+    @DisplayName("Hold Lifecycle Tests")
+    class HoldLifecycleTests {
+
+        @Test
+        @DisplayName("Should track quantity updates and unit removals")
+        void testUpdates() {
+            cart.addProduct(mouse, 5);
+            cart.updateQuantity(mouse, 2);
+            cart.removeProductUnit(mouse);
+            batcher.flush();
+            assertEquals(1, inventory.getHeld(mouse));
+        }
+
+        @Test
+        @DisplayName("Should release holds on removal and clear")
+        void testRelease() {
+            cart.addProduct(mouse, 5);
+            cart.addProduct(laptop, 1);
+            batcher.flush();
+
+            cart.removeProduct(laptop);
+            cart.clearCart();
+            batcher.flush();
+            assertEquals(0, inventory.getHeld(mouse));
+            assertEquals(10, inventory.getAvailable(laptop));
+        }
+
+        @Test
+        @DisplayName("Should reserve existing lines on attach and release them on detach")
+        void testAttachDetach() {
+            Cart guest = TestDataFactory.createCartWithMultipleProducts();
+            guest.setReservations(batcher);
+            batcher.flush();
+            assertEquals(2, inventory.getHeld(mouse));
+
+            guest.setReservations(null);
+            batcher.flush();
+            assertEquals(0, inventory.getHeld(mouse));
+        }
+
+        @Test
+        @DisplayName("Should reserve lines brought in by a merge")
+        void testMerge() {
+            cart.addProduct(mouse, 1);
+            cart.mergeFrom(TestDataFactory.createCartWithMultipleProducts(), MergePolicy.SUM);
+            batcher.flush();
+            assertEquals(3, inventory.getHeld(mouse));
+            assertEquals(1, inventory.getHeld(laptop));
+        }
+
+        @Test
+        @DisplayName("Should reject invalid batcher settings")
+        void testInvalid() {
+            assertThrows(IllegalArgumentException.class, () -> new ReservationBatcher(null, clock, Duration.ZERO, 1));
+            assertThrows(IllegalArgumentException.class, () -> new ReservationBatcher(inventory, clock, Duration.ZERO, 0));
+            assertThrows(IllegalArgumentException.class, () -> batcher.record(null, 1));
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Cart Store Tests")
+class CartStoreTest {
+
+    private CartStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new CartStore("node-1");
+    }
+
+    @Nested
+    @DisplayName("Session Tests")
+    class SessionTests {
+
+        @Test
+        @DisplayName("Should create cart on first access")
+        void testGetOrCreate() {
+            Cart cart = store.getOrCreateCart("s1");
+            assertSame(cart, store.getOrCreateCart("s1"));
+            assertSame(cart, store.getCart("s1"));
+            assertEquals(1, store.size());
+        }
+
+        @Test
+        @DisplayName("Should return null for unknown session")
+        void testUnknownSession() {
+            assertNull(store.getCart("missing"));
+            assertNull(store.getCart(null));
+            assertFalse(store.removeCart("missing"));
+        }
+
+        @Test
+        @DisplayName("Should reject invalid session ids")
+        void testInvalidSessionIds() {
+            assertThrows(IllegalArgumentException.class, () -> store.getOrCreateCart(""));
+            assertThrows(IllegalArgumentException.class, () -> store.putCart(null, new Cart()));
+            assertThrows(IllegalArgumentException.class, () -> store.putCart("s1", null));
+        }
+    }
+
+    @Nested
+    @DisplayName("Reverse Index Tests")
+    class ReverseIndexTests {
+
+        @Test
+        @DisplayName("Should find only the carts that contain a product")
+        void testCartsContaining() {
+            store.getOrCreateCart("a").addProduct(TestDataFactory.createLaptop());
+            store.getOrCreateCart("b").addProduct(TestDataFactory.createMouse(), 2);
+            store.getOrCreateCart("c").addProduct(TestDataFactory.createLaptop(), 3);
+
+            assertEquals(Set.of("a", "c"), Set.copyOf(store.getSessionsContaining("Laptop")));
+            assertEquals(List.of(store.getCart("b")), store.getCartsContaining("Mouse"));
+            assertEquals(0, store.countCartsContaining("Keyboard"));
+        }
+
+        @Test
+        @DisplayName("Should drop a cart from the index when its last line is removed")
+        void testRemoveLine() {
+            Cart cart = store.getOrCreateCart("a");
+            Product laptop = TestDataFactory.createLaptop();
+            cart.addProduct(laptop, 2);
+
+            cart.removeProductUnit(laptop);
+            assertEquals(1, store.countCartsContaining("Laptop"));
+
+            cart.updateQuantity(laptop, 0);
+            assertEquals(0, store.countCartsContaining("Laptop"));
+        }
+
+        @Test
+        @DisplayName("Should keep a SKU indexed while any line with that name remains")
+        void testSameNameDifferentPrice() {
+            Cart cart = store.getOrCreateCart("a");
+            Product oldLaptop = new Product("Laptop", 899.99, "Electronics");
+            cart.addProduct(oldLaptop);
+            cart.addProduct(TestDataFactory.createLaptop());
+
+            cart.removeProduct(oldLaptop);
+            assertEquals(1, store.countCartsContaining("Laptop"));
+            cart.removeProduct("Laptop");
+            assertEquals(0, store.countCartsContaining("Laptop"));
+        }
+
+        @Test
+        @DisplayName("Should clear postings on clearCart and removeCart")
+        void testClearAndRemove() {
+            Cart a = store.getOrCreateCart("a");
+            a.addProduct(TestDataFactory.createLaptop());
+            a.addProduct(TestDataFactory.createMouse());
+            store.getOrCreateCart("b").addProduct(TestDataFactory.createMouse());
+
+            a.clearCart();
+            assertEquals(0, store.countCartsContaining("Laptop"));
+            assertEquals(List.of("b"), store.getSessionsContaining("Mouse"));
+
+            store.removeCart("b");
+            assertEquals(0, store.countCartsContaining("Mouse"));
+        }
+
+        @Test
+        @DisplayName("Should index carts added with existing lines")
+        void testPutExistingCart() {
+            store.putCart("a", TestDataFactory.createCartWithMultipleProducts());
+            assertEquals(List.of("a"), store.getSessionsContaining("Keyboard"));
+        }
+
+        @Test
+        @DisplayName("Should stop tracking a cart once it leaves the store")
+        void testDetachedCartNotTracked() {
+            Cart cart = store.getOrCreateCart("a");
+            store.removeCart("a");
+            cart.addProduct(TestDataFactory.createLaptop());
+            assertEquals(0, store.countCartsContaining("Laptop"));
+        }
+
+        @Test
+        @DisplayName("Should reuse ordinals of removed sessions")
+        void testOrdinalReuse() {
+            store.getOrCreateCart("a").addProduct(TestDataFactory.createLaptop());
+            store.removeCart("a");
+            store.getOrCreateCart("b").addProduct(TestDataFactory.createLaptop());
+            assertEquals(List.of("b"), store.getSessionsContaining("Laptop"));
+        }
+
+        @Test
+        @DisplayName("Should evict only affected carts")
+        void testEvict() {
+            store.getOrCreateCart("a").addProduct(TestDataFactory.createLaptop());
+            store.getOrCreateCart("b").addProduct(TestDataFactory.createMouse());
+
+            assertEquals(1, store.evictCartsContaining("Laptop"));
+            assertFalse(store.containsSession("a"));
+            assertTrue(store.containsSession("b"));
+        }
+
+        @Test
+        @DisplayName("Should release stock holds of carts that leave the store")
+        void testRemovedCartsReleaseHolds() {
+            InMemoryInventory inventory = new InMemoryInventory();
+            ReservationBatcher batcher = new ReservationBatcher(inventory, Clock.systemUTC(), Duration.ofHours(1), 100);
+            store.setReservations(batcher);
+            Product laptop = TestDataFactory.createLaptop();
+            store.getOrCreateCart("a").addProduct(laptop, 2);
+            store.getOrCreateCart("b").addProduct(laptop, 3);
+            store.getOrCreateCart("c").addProduct(laptop);
+            batcher.flush();
+            assertEquals(6, inventory.getHeld(laptop));
+
+            assertTrue(store.removeCart("a"));
+            store.putCart("b", new Cart());
+            batcher.flush();
+            assertEquals(1, inventory.getHeld(laptop));
+
+            assertEquals(1, store.evictCartsContaining("Laptop"));
+            batcher.flush();
+            assertEquals(0, inventory.getHeld(laptop));
+        }
+
+        @Test
+        @DisplayName("Should follow carts migrated between cluster nodes")
+        void testIndexFollowsMigration() {
+            CartCluster cluster = new CartCluster(16);
+            cluster.addNode("n1");
+            for (int i = 0; i < 100; i++) {
+                cluster.getCart("s" + i).addProduct(TestDataFactory.createBook());
+            }
+            cluster.addNode("n2");
+
+            int total = 0;
+            for (String nodeId : cluster.getNodeIds()) {
+                CartStore node = cluster.getNode(nodeId);
+                assertEquals(node.size(), node.countCartsContaining("Programming Book"));
+                total += node.countCartsContaining("Programming Book");
+            }
+            assertEquals(100, total);
+        }
+    }
+}
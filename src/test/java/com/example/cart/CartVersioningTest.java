@@ -0,0 +1,202 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Cart Versioning Tests")
+class CartVersioningTest {
+
+    private Cart cart;
+
+    @BeforeEach
+    void setUp() {
+        cart = new Cart();
+    }
+
+    @Nested
+    @DisplayName("Version Stamp Tests")
+    class VersionStampTests {
+
+        @Test
+        @DisplayName("Should start at version zero")
+        void testNewCartVersion() {
+            assertEquals(0, cart.getVersion());
+        }
+
+        @Test
+        @DisplayName("Should bump version on every mutation")
+        void testVersionIncreasesOnMutations() {
+            Product laptop = TestDataFactory.createLaptop();
+            long previous = cart.getVersion();
+
+            cart.addProduct(laptop, 2);
+            assertTrue(cart.getVersion() > previous);
+            previous = cart.getVersion();
+
+            cart.updateQuantity(laptop, 3);
+            assertTrue(cart.getVersion() > previous);
+            previous = cart.getVersion();
+
+            cart.removeProductUnit(laptop);
+            assertTrue(cart.getVersion() > previous);
+            previous = cart.getVersion();
+
+            cart.applyDiscount(10.0);
+            assertTrue(cart.getVersion() > previous);
+            previous = cart.getVersion();
+
+            cart.addPromotion("Laptop", 50.0);
+            assertTrue(cart.getVersion() > previous);
+            previous = cart.getVersion();
+
+            cart.clearPromotions();
+            assertTrue(cart.getVersion() > previous);
+            previous = cart.getVersion();
+
+            cart.clearCart();
+            assertTrue(cart.getVersion() > previous);
+        }
+
+        @Test
+        @DisplayName("Should not bump version on failed mutations or reads")
+        void testVersionUnchangedOnNoOps() {
+            cart.addProduct(TestDataFactory.createLaptop());
+            long version = cart.getVersion();
+
+            cart.updateQuantity(TestDataFactory.createMouse(), 5);
+            cart.removeProduct(TestDataFactory.createMouse());
+            cart.removeProduct("Keyboard");
+            cart.addProduct("Laptop");
+            cart.getTotal();
+            cart.getCartSummary();
+
+            assertEquals(version, cart.getVersion());
+        }
+    }
+
+    @Nested
+    @DisplayName("Compare-And-Set Mutation Tests")
+    class CompareAndSetTests {
+
+        @Test
+        @DisplayName("Should add product when version matches")
+        void testAddProductIfVersionMatches() {
+            long version = cart.getVersion();
+            assertTrue(cart.addProductIfVersion(TestDataFactory.createMouse(), 2, version));
+            assertEquals(2, cart.getQuantity(TestDataFactory.createMouse()));
+        }
+
+        @Test
+        @DisplayName("Should reject add when version is stale")
+        void testAddProductIfVersionStale() {
+            long version = cart.getVersion();
+            cart.addProduct(TestDataFactory.createLaptop());
+
+            assertFalse(cart.addProductIfVersion(TestDataFactory.createMouse(), 2, version));
+            assertFalse(cart.containsProduct(TestDataFactory.createMouse()));
+        }
+
+        @Test
+        @DisplayName("Should update quantity when version matches")
+        void testUpdateQuantityIfVersionMatches() {
+            Product mouse = TestDataFactory.createMouse();
+            cart.addProduct(mouse, 1);
+
+            assertTrue(cart.updateQuantityIfVersion(mouse, 4, cart.getVersion()));
+            assertEquals(4, cart.getQuantity(mouse));
+        }
+
+        @Test
+        @DisplayName("Should reject update when version is stale")
+        void testUpdateQuantityIfVersionStale() {
+            Product mouse = TestDataFactory.createMouse();
+            cart.addProduct(mouse, 1);
+            long version = cart.getVersion();
+            cart.addProduct(mouse, 1);
+
+            assertFalse(cart.updateQuantityIfVersion(mouse, 10, version));
+            assertEquals(2, cart.getQuantity(mouse));
+        }
+
+        @Test
+        @DisplayName("Should validate arguments before checking version")
+        void testConditionalMutatorsValidateArguments() {
+            assertThrows(IllegalArgumentException.class,
+                () -> cart.addProductIfVersion(null, 1, 0));
+            assertThrows(IllegalArgumentException.class,
+                () -> cart.addProductIfVersion(TestDataFactory.createMouse(), 0, 0));
+            assertThrows(IllegalArgumentException.class,
+                () -> cart.updateQuantityIfVersion(TestDataFactory.createMouse(), -1, 0));
+        }
+
+        @Test
+        @DisplayName("Should let exactly one concurrent writer win per version")
+        void testConcurrentCompareAndSet() throws InterruptedException {
+            int threads = 8;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger winners = new AtomicInteger();
+            long version = cart.getVersion();
+
+            for (int i = 0; i < threads; i++) {
+                Product product = new Product("Product" + i, 10.0);
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        if (cart.addProductIfVersion(product, 1, version)) {
+                            winners.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(1, winners.get());
+            assertEquals(1, cart.getUniqueProductCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Optimistic Read Tests")
+    class OptimisticReadTests {
+
+        @Test
+        @DisplayName("Should return consistent totals while writers are active")
+        void testReadsDuringConcurrentWrites() throws InterruptedException {
+            Product mouse = TestDataFactory.createMouse();
+            cart.addProduct(mouse, 1);
+
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    cart.updateQuantity(mouse, i % 5 + 1);
+                    cart.addProduct(new Product("Temp" + (i % 10), 1.0), 1);
+                    cart.removeProduct("Temp" + ((i + 5) % 10));
+                }
+            });
+            writer.start();
+
+            while (writer.isAlive()) {
+                double total = cart.getTotal();
+                assertTrue(total >= 0);
+                assertTrue(cart.getSubtotal() >= 0);
+            }
+            writer.join();
+
+            assertEquals(cart.getSubtotal(), cart.getTotal(), 0.001);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Category Dictionary Tests")
+class CategoryDictionaryTest {
+
+    @Test
+    @DisplayName("Should give the same code to the same category")
+    void testStableCodes() {
+        int code = CategoryDictionary.encode("Electronics");
+        assertEquals(code, CategoryDictionary.encode(new String("Electronics")));
+        assertEquals("Electronics", CategoryDictionary.decode(code));
+        assertEquals(code, CategoryDictionary.lookup("Electronics"));
+    }
+
+    @Test
+    @DisplayName("Should give different codes to different categories")
+    void testDistinctCodes() {
+        assertNotEquals(CategoryDictionary.encode("Books"), CategoryDictionary.encode("Clothing"));
+    }
+
+    @Test
+    @DisplayName("Should map null category to NULL_CODE")
+    void testNullCategory() {
+        assertEquals(CategoryDictionary.NULL_CODE, CategoryDictionary.encode(null));
+        assertNull(CategoryDictionary.decode(CategoryDictionary.NULL_CODE));
+    }
+
+    @Test
+    @DisplayName("Should not assign a code on lookup")
+    void testLookupUnknown() {
+        int size = CategoryDictionary.size();
+        assertEquals(CategoryDictionary.NULL_CODE, CategoryDictionary.lookup("Never Seen Category"));
+        assertEquals(size, CategoryDictionary.size());
+    }
+
+    @Test
+    @DisplayName("Should reject unknown codes")
+    void testUnknownCode() {
+        assertThrows(IllegalArgumentException.class, () -> CategoryDictionary.decode(Integer.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> CategoryDictionary.decode(-2));
+    }
+
+    @Test
+    @DisplayName("Should grow past its initial capacity")
+    void testGrowth() {
+        for (int i = 0; i < 100; i++) {
+            int code = CategoryDictionary.encode("Growth" + i);
+            assertEquals("Growth" + i, CategoryDictionary.decode(code));
+        }
+    }
+
+    @Test
+    @DisplayName("Should share category strings and codes between products")
+    void testProductsShareCategory() {
+        Product laptop = TestDataFactory.createLaptop();
+        Product mouse = TestDataFactory.createMouse();
+        assertEquals(laptop.getCategoryCode(), mouse.getCategoryCode());
+        assertSame(laptop.getCategory(), mouse.getCategory());
+        assertNotEquals(laptop.getCategoryCode(), TestDataFactory.createBook().getCategoryCode());
+    }
+}
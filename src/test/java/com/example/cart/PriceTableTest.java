@@ -0,0 +1,190 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Price Table Tests")
+class PriceTableTest {
+
+    private PriceTable table;
+
+    @BeforeEach
+    void setUp() {
+        table = new PriceTable();
+    }
+
+    @Nested
+    @DisplayName("Table Versioning Tests")
+    class TableVersioningTests {
+
+        @Test
+        @DisplayName("Should bump version on every price change")
+        void testVersionBumps() {
+            assertEquals(0, table.getVersion());
+            table.setPrice("Laptop", 899.99);
+            table.setPrice("Mouse", 24.99);
+            assertEquals(2, table.getVersion());
+            assertTrue(table.removePrice("Mouse"));
+            assertEquals(3, table.getVersion());
+            assertFalse(table.removePrice("Mouse"));
+            assertEquals(3, table.getVersion());
+        }
+
+        @Test
+        @DisplayName("Should return NaN for unknown SKU")
+        void testUnknownSku() {
+            assertTrue(Double.isNaN(table.getPrice("Nothing")));
+            assertFalse(table.hasPrice("Nothing"));
+        }
+
+        @Test
+        @DisplayName("Should reject invalid prices")
+        void testInvalidPrices() {
+            assertThrows(IllegalArgumentException.class, () -> table.setPrice(null, 1.0));
+            assertThrows(IllegalArgumentException.class, () -> table.setPrice("", 1.0));
+            assertThrows(IllegalArgumentException.class, () -> table.setPrice("Laptop", -1.0));
+        }
+
+        @Test
+        @DisplayName("Should list changes since a version")
+        void testChangesSince() {
+            table.setPrice("Laptop", 899.99);
+            long since = table.getVersion();
+            table.setPrice("Mouse", 24.99);
+            table.setPrice("Keyboard", 69.99);
+
+            List<String> changed = new ArrayList<>();
+            assertEquals(3, table.changesSince(since, changed));
+            assertEquals(List.of("Mouse", "Keyboard"), changed);
+        }
+
+        @Test
+        @DisplayName("Should signal when history no longer covers a version")
+        void testHistoryOverflow() {
+            PriceTable small = new PriceTable(2);
+            small.setPrice("A", 1.0);
+            small.setPrice("B", 2.0);
+            small.setPrice("C", 3.0);
+
+            assertEquals(-1, small.changesSince(0, new ArrayList<>()));
+            assertEquals(3, small.changesSince(1, new ArrayList<>()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Cart Repricing Tests")
+    class CartRepricingTests {
+
+        private Cart cart;
+
+        @BeforeEach
+        void setUpCart() {
+            cart = TestDataFactory.createCartWithMultipleProducts();
+        }
+
+        @Test
+        @DisplayName("Should fall back to product price when table has none")
+        void testFallbackToProductPrice() {
+            double subtotal = cart.getSubtotal();
+            cart.setPriceTable(table);
+            assertEquals(subtotal, cart.getSubtotal(), 0.001);
+        }
+
+        @Test
+        @DisplayName("Should use table price over product price")
+        void testTablePriceWins() {
+            table.setPrice("Laptop", 899.99);
+            cart.setPriceTable(table);
+
+            assertEquals(899.99 + 29.99 * 2 + 79.99, cart.getSubtotal(), 0.001);
+            assertEquals(899.99, cart.getUnitPrice(TestDataFactory.createLaptop()), 0.001);
+        }
+
+        @Test
+        @DisplayName("Should pick up price changes lazily on next read")
+        void testRepriceOnNextRead() {
+            cart.setPriceTable(table);
+            table.setPrice("Mouse", 19.99);
+
+            assertEquals(999.99 + 19.99 * 2 + 79.99, cart.getSubtotal(), 0.001);
+
+            table.removePrice("Mouse");
+            assertEquals(999.99 + 29.99 * 2 + 79.99, cart.getTotal(), 0.001);
+        }
+
+        @Test
+        @DisplayName("Should keep the same line when the price changes")
+        void testProductIdentityUnaffected() {
+            cart.setPriceTable(table);
+            table.setPrice("Laptop", 1099.99);
+
+            cart.addProduct(TestDataFactory.createLaptop());
+            assertEquals(2, cart.getQuantity(TestDataFactory.createLaptop()));
+            assertEquals(3, cart.getUniqueProductCount());
+        }
+
+        @Test
+        @DisplayName("Should resolve lines added after attaching the table")
+        void testResolveNewLines() {
+            cart.setPriceTable(table);
+            table.setPrice("Programming Book", 39.99);
+            cart.addProduct(TestDataFactory.createBook(), 2);
+
+            assertEquals(999.99 + 29.99 * 2 + 79.99 + 39.99 * 2, cart.getSubtotal(), 0.001);
+        }
+
+        @Test
+        @DisplayName("Should fully reprice when the change log overflowed")
+        void testRepriceAfterHistoryOverflow() {
+            PriceTable small = new PriceTable(1);
+            cart.setPriceTable(small);
+            small.setPrice("Laptop", 1.0);
+            small.setPrice("Mouse", 2.0);
+            small.setPrice("Keyboard", 3.0);
+
+            assertEquals(1.0 + 2.0 * 2 + 3.0, cart.getSubtotal(), 0.001);
+        }
+
+        @Test
+        @DisplayName("Should apply promotions and discounts to table prices")
+        void testDiscountsUseTablePrices() {
+            cart.setPriceTable(table);
+            table.setPrice("Laptop", 500.0);
+            cart.applyDiscount(10.0);
+            cart.addPromotion("Laptop", 50.0);
+
+            double subtotal = 500.0 + 29.99 * 2 + 79.99;
+            assertEquals(subtotal * 0.9 - 50.0, cart.getTotal(), 0.001);
+            assertTrue(cart.getCartSummary().contains("Laptop x1 = $500.00"));
+        }
+
+        @Test
+        @DisplayName("Should restore product prices when detached")
+        void testDetach() {
+            table.setPrice("Laptop", 1.0);
+            cart.setPriceTable(table);
+            cart.setPriceTable(null);
+            assertEquals(999.99 + 29.99 * 2 + 79.99, cart.getSubtotal(), 0.001);
+            assertNull(cart.getPriceTable());
+        }
+
+        @Test
+        @DisplayName("Should share one table between many carts")
+        void testSharedTable() {
+            Cart other = TestDataFactory.createCartWithSingleProduct();
+            cart.setPriceTable(table);
+            other.setPriceTable(table);
+
+            table.setPrice("Laptop", 799.99);
+            assertEquals(799.99, other.getTotal(), 0.001);
+            assertEquals(799.99 + 29.99 * 2 + 79.99, cart.getTotal(), 0.001);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Promotion Catalog Tests")
+class PromotionCatalogTest {
+
+    private PromotionCatalog catalog;
+    private Cart cart;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new PromotionCatalog();
+        cart = new Cart();
+        cart.addProduct(TestDataFactory.createMouse(), 2);
+        cart.addProduct(TestDataFactory.createLaptop());
+        cart.setPromotionCatalog(catalog);
+    }
+
+    @Nested
+    @DisplayName("Catalog Snapshot Tests")
+    class CatalogSnapshotTests {
+
+        @Test
+        @DisplayName("Should publish a new immutable snapshot per update")
+        void testSnapshots() {
+            PromotionCatalog.Snapshot before = catalog.snapshot();
+            catalog.setPromotion("Mouse", 5.0);
+            PromotionCatalog.Snapshot after = catalog.snapshot();
+
+            assertNotSame(before, after);
+            assertEquals(before.getVersion() + 1, after.getVersion());
+            assertEquals(0.0, before.getDiscount("Mouse"));
+            assertEquals(5.0, after.getDiscount("Mouse"));
+            assertThrows(UnsupportedOperationException.class, () -> after.asMap().put("Laptop", 1.0));
+        }
+
+        @Test
+        @DisplayName("Should replace everything atomically on publish")
+        void testPublish() {
+            catalog.setPromotion("Mouse", 5.0);
+            catalog.publish(Map.of("Laptop", 100.0));
+            assertEquals(Map.of("Laptop", 100.0), catalog.snapshot().asMap());
+            assertFalse(catalog.removePromotion("Mouse"));
+            assertTrue(catalog.removePromotion("Laptop"));
+        }
+
+        @Test
+        @DisplayName("Should reject invalid promotions")
+        void testInvalid() {
+            assertThrows(IllegalArgumentException.class, () -> catalog.setPromotion("", 1.0));
+            assertThrows(IllegalArgumentException.class, () -> catalog.setPromotion("Mouse", -1.0));
+            assertThrows(IllegalArgumentException.class, () -> catalog.publish(null));
+            assertThrows(IllegalArgumentException.class, () -> catalog.publish(Map.of("Mouse", -2.0)));
+        }
+    }
+
+    @Nested
+    @DisplayName("Shared Cart Tests")
+    class SharedCartTests {
+
+        @Test
+        @DisplayName("Should pick up catalog updates on the next price read")
+        void testLazyPickUp() {
+            double before = cart.getDiscountAmount();
+            catalog.setPromotion("Mouse", 5.0);
+            assertEquals(before + 10.0, cart.getDiscountAmount(), 0.0001);
+
+            catalog.removePromotion("Mouse");
+            assertEquals(before, cart.getDiscountAmount(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should share one catalog between many carts")
+        void testManyCarts() {
+            Cart other = new Cart();
+            other.addProduct(TestDataFactory.createMouse(), 1);
+            other.setPromotionCatalog(catalog);
+
+            catalog.setPromotion("Mouse", 3.0);
+            assertEquals(6.0, cart.getDiscountAmount(), 0.0001);
+            assertEquals(3.0, other.getDiscountAmount(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should let per-cart promotions override the catalog")
+        void testOverrides() {
+            catalog.setPromotion("Mouse", 5.0);
+            cart.addPromotion("Mouse", 1.0);
+            assertEquals(2.0, cart.getDiscountAmount(), 0.0001);
+            assertEquals(Map.of("Mouse", 1.0), cart.getActivePromotions());
+
+            catalog.setPromotion("Mouse", 7.0);
+            assertEquals(2.0, cart.getDiscountAmount(), 0.0001);
+
+            cart.removePromotion("Mouse");
+            assertEquals(14.0, cart.getDiscountAmount(), 0.0001);
+            assertEquals(Map.of("Mouse", 7.0), cart.getActivePromotions());
+
+            cart.addPromotion("Laptop", 10.0);
+            cart.clearPromotions();
+            assertEquals(14.0, cart.getDiscountAmount(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should apply catalog promotions to lines added later")
+        void testNewLines() {
+            catalog.setPromotion("Keyboard", 4.0);
+            cart.getTotal();
+            cart.addProduct(TestDataFactory.createKeyboard(), 3);
+            assertEquals(12.0, cart.getDiscountAmount(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should stop applying catalog promotions once detached")
+        void testDetach() {
+            catalog.setPromotion("Mouse", 5.0);
+            assertEquals(10.0, cart.getDiscountAmount(), 0.0001);
+            cart.setPromotionCatalog(null);
+            assertEquals(0.0, cart.getDiscountAmount(), 0.0001);
+            assertTrue(cart.getActivePromotions().isEmpty());
+        }
+    }
+}
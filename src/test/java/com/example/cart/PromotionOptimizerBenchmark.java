@@ -0,0 +1,301 @@
+package com.example.cart;
+
+import java.util.*;
+
+// Times PromotionOptimizer on carts with many competing offers and compares it with the naive
+// approach of re-pricing the cart once per combination of group offers. Not a unit test: run it by hand, e.g.
+//     mvn -q test-compile
+//     java -cp target/classes:target/test-classes com.example.cart.PromotionOptimizerBenchmark \
+//         lines=40 groups=8 offersPerGroup=6 ungrouped=10 iterations=2000
+// The naive search only runs while the number of combinations is at most naiveLimit.
+public class PromotionOptimizerBenchmark {
+
+    public static final class Config {
+        int lines = 20;
+        int groups = 6;
+        int offersPerGroup = 5;
+        int ungrouped = 5;
+        int categories = 4;
+        int iterations = 1_000;
+        long naiveLimit = 100_000;
+        long seed = 42;
+
+        public Config lines(int lines) {
+            this.lines = lines;
+            return this;
+        }
+
+        public Config groups(int groups) {
+            this.groups = groups;
+            return this;
+        }
+
+        public Config offersPerGroup(int offersPerGroup) {
+            this.offersPerGroup = offersPerGroup;
+            return this;
+        }
+
+        public Config ungrouped(int ungrouped) {
+            this.ungrouped = ungrouped;
+            return this;
+        }
+
+        public Config categories(int categories) {
+            this.categories = categories;
+            return this;
+        }
+
+        public Config iterations(int iterations) {
+            this.iterations = iterations;
+            return this;
+        }
+
+        public Config naiveLimit(long naiveLimit) {
+            this.naiveLimit = naiveLimit;
+            return this;
+        }
+
+        public Config seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        private void validate() {
+            if (lines <= 0 || categories <= 0 || iterations <= 0 || offersPerGroup <= 0) {
+                throw new IllegalArgumentException("Lines, categories, iterations and offers per group must be positive");
+            }
+            if (groups < 0 || ungrouped < 0 || naiveLimit < 0) {
+                throw new IllegalArgumentException("Groups, ungrouped offers and naive limit cannot be negative");
+            }
+        }
+    }
+
+    public static final class Report {
+        private final long combinations;
+        private final long nodes;
+        private final double optimizerNanos;
+        private final double naiveNanos;
+        private final double discount;
+        private final double naiveDiscount;
+
+        private Report(long combinations, long nodes, double optimizerNanos, double naiveNanos, double discount,
+                       double naiveDiscount) {
+            this.combinations = combinations;
+            this.nodes = nodes;
+            this.optimizerNanos = optimizerNanos;
+            this.naiveNanos = naiveNanos;
+            this.discount = discount;
+            this.naiveDiscount = naiveDiscount;
+        }
+
+        // Offer combinations a naive search has to price (product of the group sizes, capped at Long.MAX_VALUE)
+        public long getCombinations() {
+            return combinations;
+        }
+
+        public long getNodesExplored() {
+            return nodes;
+        }
+
+        public double getOptimizerNanos() {
+            return optimizerNanos;
+        }
+
+        // Time of one naive search, or NaN if it was skipped
+        public double getNaiveNanos() {
+            return naiveNanos;
+        }
+
+        public double getDiscount() {
+            return discount;
+        }
+
+        // Best discount of the naive search, or NaN if it was skipped
+        public double getNaiveDiscount() {
+            return naiveDiscount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("combinations: %d, nodes explored: %d%n"
+                    + "optimizer:    %.1f us/cart, discount %.2f%n"
+                    + "naive:        %s",
+                combinations, nodes, optimizerNanos / 1e3, discount,
+                Double.isNaN(naiveNanos) ? "skipped" : String.format("%.1f us/cart, discount %.2f", naiveNanos / 1e3, naiveDiscount));
+        }
+    }
+
+    private final Config config;
+    private final Cart cart;
+    private final List<Offer> offers;
+
+    public PromotionOptimizerBenchmark(Config config) {
+        if (config == null) {
+            throw new IllegalArgumentException("Config cannot be null");
+        }
+        config.validate();
+        this.config = config;
+
+        Random random = new Random(config.seed);
+        cart = new Cart();
+        for (int i = 0; i < config.lines; i++) {
+            double price = 1 + random.nextInt(20_000) / 100.0;
+            cart.addProduct(new Product("Product" + i, price, "Category" + random.nextInt(config.categories)),
+                1 + random.nextInt(4));
+        }
+
+        // Competing offers: site-wide percentages, category deals and single-SKU coupons, some stackable
+        offers = new ArrayList<>();
+        for (int i = 0; i < config.ungrouped; i++) {
+            offers.add(randomOffer(random, "promo" + i));
+        }
+        for (int g = 0; g < config.groups; g++) {
+            for (int i = 0; i < config.offersPerGroup; i++) {
+                offers.add(randomOffer(random, "coupon" + g + "-" + i).inGroup("group" + g));
+            }
+        }
+    }
+
+    private Offer randomOffer(Random random, String name) {
+        Offer offer;
+        int shape = random.nextInt(3);
+        if (shape == 0) {
+            offer = Offer.percentOff(name, 1 + random.nextInt(30));
+        } else if (shape == 1) {
+            offer = Offer.percentOff(name, 5 + random.nextInt(40)).forCategory("Category" + random.nextInt(config.categories));
+        } else {
+            offer = Offer.amountOffPerUnit(name, 1 + random.nextInt(50)).forSku("Product" + random.nextInt(config.lines));
+        }
+        return random.nextInt(4) == 0 ? offer.stacking() : offer;
+    }
+
+    public Cart getCart() {
+        return cart;
+    }
+
+    public List<Offer> getOffers() {
+        return offers;
+    }
+
+    public Report run() {
+        PromotionOptimizer optimizer = new PromotionOptimizer();
+        PromotionPlan plan = null;
+        // Warm up, then measure
+        for (int i = 0; i < config.iterations; i++) {
+            plan = optimizer.optimize(cart, offers);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < config.iterations; i++) {
+            plan = optimizer.optimize(cart, offers);
+        }
+        double optimizerNanos = (double) (System.nanoTime() - start) / config.iterations;
+
+        long combinations = 1;
+        for (int g = 0; g < config.groups; g++) {
+            combinations = combinations > Long.MAX_VALUE / config.offersPerGroup
+                ? Long.MAX_VALUE : combinations * config.offersPerGroup;
+        }
+        double naiveNanos = Double.NaN;
+        double naiveDiscount = Double.NaN;
+        if (combinations <= config.naiveLimit) {
+            start = System.nanoTime();
+            naiveDiscount = naiveBestDiscount(cart, offers);
+            naiveNanos = System.nanoTime() - start;
+        }
+        return new Report(combinations, plan.getNodesExplored(), optimizerNanos, naiveNanos, plan.getDiscount(),
+            naiveDiscount);
+    }
+
+    // Reference search: price the whole cart for every combination of one offer per group
+    public static double naiveBestDiscount(Cart cart, List<Offer> offers) {
+        List<Offer> base = new ArrayList<>();
+        Map<String, List<Offer>> groups = new LinkedHashMap<>();
+        for (Offer offer : offers) {
+            if (offer.getGroup() == null) {
+                base.add(offer);
+            } else {
+                groups.computeIfAbsent(offer.getGroup(), g -> new ArrayList<>()).add(offer);
+            }
+        }
+        List<List<Offer>> groupList = new ArrayList<>(groups.values());
+        int[] choice = new int[groupList.size()];
+        double best = 0.0;
+        while (true) {
+            List<Offer> combination = new ArrayList<>(base);
+            for (int g = 0; g < choice.length; g++) {
+                combination.add(groupList.get(g).get(choice[g]));
+            }
+            best = Math.max(best, priceDiscount(cart, combination));
+
+            int g = 0;
+            while (g < choice.length && ++choice[g] == groupList.get(g).size()) {
+                choice[g++] = 0;
+            }
+            if (g == choice.length) {
+                return best;
+            }
+        }
+    }
+
+    private static double priceDiscount(Cart cart, List<Offer> combination) {
+        double[] total = {0.0};
+        cart.forEachLine((name, unitPrice, category, quantity, lineTotal) -> {
+            double bestSingle = 0.0;
+            double stacked = 0.0;
+            for (Offer offer : combination) {
+                if (offer.appliesTo(name, category)) {
+                    double amount = offer.discountFor(unitPrice, quantity);
+                    if (offer.isStackable()) {
+                        stacked += amount;
+                    } else {
+                        bestSingle = Math.max(bestSingle, amount);
+                    }
+                }
+            }
+            total[0] += Math.min(lineTotal, bestSingle + stacked);
+        });
+        return total[0];
+    }
+
+    public static void main(String[] args) {
+        Config config = new Config();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected name=value, got: " + arg);
+            }
+            String name = arg.substring(0, separator);
+            String value = arg.substring(separator + 1);
+            switch (name) {
+                case "lines":
+                    config.lines(Integer.parseInt(value));
+                    break;
+                case "groups":
+                    config.groups(Integer.parseInt(value));
+                    break;
+                case "offersPerGroup":
+                    config.offersPerGroup(Integer.parseInt(value));
+                    break;
+                case "ungrouped":
+                    config.ungrouped(Integer.parseInt(value));
+                    break;
+                case "categories":
+                    config.categories(Integer.parseInt(value));
+                    break;
+                case "iterations":
+                    config.iterations(Integer.parseInt(value));
+                    break;
+                case "naiveLimit":
+                    config.naiveLimit(Long.parseLong(value));
+                    break;
+                case "seed":
+                    config.seed(Long.parseLong(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + name);
+            }
+        }
+
+        System.out.println(new PromotionOptimizerBenchmark(config).run());
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Promotion Optimizer Tests")
+class PromotionOptimizerTest {
+
+    private PromotionOptimizer optimizer;
+    private Cart cart;
+
+    @BeforeEach
+    void setUp() {
+        optimizer = new PromotionOptimizer();
+        // Laptop 999.99, 2 x Mouse 29.99, Keyboard 79.99, all Electronics
+        cart = TestDataFactory.createCartWithMultipleProducts();
+    }
+
+    @Nested
+    @DisplayName("Offer Rule Tests")
+    class OfferRuleTests {
+
+        @Test
+        @DisplayName("Should apply only the best non-stackable offer per line")
+        void testBestOf() {
+            PromotionPlan plan = optimizer.optimize(cart, List.of(
+                Offer.percentOff("ten", 10.0),
+                Offer.amountOffPerUnit("laptop150", 150.0).forSku("Laptop")));
+
+            assertEquals(150.0, plan.getDiscountFor("Laptop"), 0.0001);
+            assertEquals(5.998, plan.getDiscountFor("Mouse"), 0.0001);
+            assertEquals(150.0 + 5.998 + 7.999, plan.getDiscount(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should add stackable offers on top, capped at the line amount")
+        void testStacking() {
+            PromotionPlan plan = optimizer.optimize(cart, List.of(
+                Offer.percentOff("ten", 10.0),
+                Offer.amountOffPerUnit("mouse", 5.0).forSku("Mouse").stacking(),
+                Offer.amountOffPerUnit("keyboard", 100.0).forSku("Keyboard").stacking()));
+
+            assertEquals(5.998 + 2 * 5.0, plan.getDiscountFor("Mouse"), 0.0001);
+            assertEquals(79.99, plan.getDiscountFor("Keyboard"), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should use one offer per group, picking the best combination")
+        void testGroups() {
+            // The laptop coupon beats the site-wide coupon, and the category deal is better on the rest
+            PromotionPlan plan = optimizer.optimize(cart, List.of(
+                Offer.percentOff("site20", 20.0).inGroup("coupon"),
+                Offer.amountOffPerUnit("laptop250", 250.0).forSku("Laptop").inGroup("coupon"),
+                Offer.percentOff("electronics15", 15.0).forCategory("Electronics")));
+
+            assertEquals(List.of("electronics15", "laptop250"), names(plan.getOffers()));
+            assertEquals(250.0 + (2 * 29.99 + 79.99) * 0.15, plan.getDiscount(), 0.0001);
+            assertTrue(plan.isOptimal());
+        }
+
+        @Test
+        @DisplayName("Should ignore offers that match no line")
+        void testUnmatchedOffers() {
+            PromotionPlan plan = optimizer.optimize(cart, List.of(
+                Offer.percentOff("books", 50.0).forCategory("Books"),
+                Offer.amountOffPerUnit("phone", 10.0).forSku("Phone").inGroup("coupon")));
+
+            assertTrue(plan.getOffers().isEmpty());
+            assertEquals(0.0, plan.getDiscount());
+        }
+
+        @Test
+        @DisplayName("Should return an empty plan for an empty cart or no offers")
+        void testEmpty() {
+            assertEquals(0.0, optimizer.optimize(new Cart(), List.of(Offer.percentOff("ten", 10.0))).getDiscount());
+            assertEquals(0.0, optimizer.optimize(cart, Collections.emptyList()).getDiscount());
+        }
+
+        @Test
+        @DisplayName("Should reject invalid offers and arguments")
+        void testInvalid() {
+            assertThrows(IllegalArgumentException.class, () -> Offer.percentOff("bad", 120.0));
+            assertThrows(IllegalArgumentException.class, () -> Offer.amountOffPerUnit("bad", -1.0));
+            assertThrows(IllegalArgumentException.class, () -> Offer.percentOff(" ", 10.0));
+            assertThrows(IllegalArgumentException.class, () -> Offer.percentOff("ok", 10.0).inGroup(null));
+            assertThrows(IllegalArgumentException.class, () -> optimizer.optimize(null, List.of()));
+            assertThrows(IllegalArgumentException.class, () -> optimizer.optimize(cart, null));
+            assertThrows(IllegalArgumentException.class, () -> new PromotionOptimizer(0));
+        }
+    }
+
+    @Nested
+    @DisplayName("Search Tests")
+    class SearchTests {
+
+        @Test
+        @DisplayName("Should match an exhaustive search on random carts")
+        void testAgainstNaive() {
+            for (long seed = 1; seed <= 30; seed++) {
+                PromotionOptimizerBenchmark benchmark = new PromotionOptimizerBenchmark(
+                    new PromotionOptimizerBenchmark.Config().lines(8).groups(4).offersPerGroup(4).seed(seed));
+                PromotionPlan plan = optimizer.optimize(benchmark.getCart(), benchmark.getOffers());
+
+                assertEquals(PromotionOptimizerBenchmark.naiveBestDiscount(benchmark.getCart(), benchmark.getOffers()),
+                    plan.getDiscount(), 0.0001, "seed " + seed);
+                assertEquals(plan.getDiscount(),
+                    plan.getLineDiscounts().values().stream().mapToDouble(Double::doubleValue).sum(), 0.0001);
+            }
+        }
+
+        @Test
+        @DisplayName("Should visit far fewer nodes than there are combinations")
+        void testPruning() {
+            PromotionOptimizerBenchmark benchmark = new PromotionOptimizerBenchmark(
+                new PromotionOptimizerBenchmark.Config().lines(50).groups(12).offersPerGroup(8).ungrouped(20));
+            PromotionPlan plan = optimizer.optimize(benchmark.getCart(), benchmark.getOffers());
+
+            // 8^12 combinations
+            assertTrue(plan.isOptimal());
+            assertTrue(plan.getNodesExplored() < 100_000, "explored " + plan.getNodesExplored());
+        }
+
+        @Test
+        @DisplayName("Should return the best plan found when the node budget runs out")
+        void testNodeBudget() {
+            List<Offer> offers = new ArrayList<>();
+            for (int g = 0; g < 10; g++) {
+                for (int i = 0; i < 3; i++) {
+                    // Stackable single-SKU offers barely interact, so bounds prune little
+                    offers.add(Offer.amountOffPerUnit("c" + g + i, i + 1).forSku(g % 2 == 0 ? "Laptop" : "Keyboard")
+                        .stacking().inGroup("g" + g));
+                }
+            }
+            PromotionPlan plan = new PromotionOptimizer(5).optimize(cart, offers);
+
+            assertFalse(plan.isOptimal());
+            assertEquals(10, plan.getOffers().size());
+            assertTrue(plan.getDiscount() > 0);
+        }
+    }
+
+    @Nested
+    @DisplayName("Benchmark Tests")
+    class BenchmarkTests {
+
+        @Test
+        @DisplayName("Should run a small benchmark and agree with the naive search")
+        void testSmallRun() {
+            PromotionOptimizerBenchmark.Report report = new PromotionOptimizerBenchmark(
+                new PromotionOptimizerBenchmark.Config().lines(10).groups(3).offersPerGroup(4).iterations(50)).run();
+
+            assertEquals(64, report.getCombinations());
+            assertEquals(report.getNaiveDiscount(), report.getDiscount(), 0.0001);
+            assertTrue(report.getOptimizerNanos() > 0);
+            assertTrue(report.toString().contains("nodes explored"));
+        }
+
+        @Test
+        @DisplayName("Should skip the naive search above its limit")
+        void testNaiveLimit() {
+            PromotionOptimizerBenchmark.Report report = new PromotionOptimizerBenchmark(
+                new PromotionOptimizerBenchmark.Config().groups(20).offersPerGroup(10).iterations(5)).run();
+
+            assertTrue(Double.isNaN(report.getNaiveNanos()));
+            assertTrue(report.toString().contains("skipped"));
+        }
+    }
+
+    private static List<String> names(List<Offer> offers) {
+        List<String> names = new ArrayList<>();
+        for (Offer offer : offers) {
+            names.add(offer.getName());
+        }
+        return names;
+    }
+}
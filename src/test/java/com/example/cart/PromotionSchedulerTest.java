@@ -0,0 +1,171 @@
+package com.example.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Promotion Scheduler Tests")
+class PromotionSchedulerTest {
+
+    private static final Instant T0 = Instant.parse("2024-11-29T00:00:00Z");
+
+    private ManualClock clock;
+    private PromotionScheduler scheduler;
+    private Cart cart;
+
+    @BeforeEach
+    void setUp() {
+        clock = new ManualClock(T0);
+        scheduler = new PromotionScheduler(clock, Duration.ofSeconds(1), 8);
+        cart = new Cart();
+        cart.addProduct(TestDataFactory.createMouse(), 2);
+        cart.addProduct(TestDataFactory.createLaptop());
+        scheduler.register(cart);
+    }
+
+    @Nested
+    @DisplayName("Activation and Expiry Tests")
+    class ActivationAndExpiryTests {
+
+        @Test
+        @DisplayName("Should activate at start and expire at end")
+        void testWindow() {
+            PromotionScheduler.ScheduledPromotion sale =
+                scheduler.schedule("Mouse", 5.0, T0.plusSeconds(10), T0.plusSeconds(20));
+
+            clock.advance(Duration.ofSeconds(9));
+            scheduler.advance();
+            assertFalse(sale.isActive());
+            assertEquals(0.0, cart.getDiscountAmount(), 0.0001);
+
+            clock.advance(Duration.ofSeconds(1));
+            assertEquals(1, scheduler.advance());
+            assertTrue(sale.isActive());
+            assertEquals(10.0, cart.getDiscountAmount(), 0.0001);
+
+            clock.advance(Duration.ofSeconds(10));
+            scheduler.advance();
+            assertTrue(sale.isEnded());
+            assertTrue(cart.getActivePromotions().isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should fire events beyond one turn of the wheel on time")
+        void testMultipleRounds() {
+            PromotionScheduler.ScheduledPromotion sale =
+                scheduler.schedule("Laptop", 100.0, T0.plusSeconds(30), T0.plusSeconds(100));
+
+            for (int second = 1; second < 30; second++) {
+                clock.advance(Duration.ofSeconds(1));
+                scheduler.advance();
+                assertFalse(sale.isActive(), "fired early at second " + second);
+            }
+            clock.advance(Duration.ofSeconds(1));
+            scheduler.advance();
+            assertTrue(sale.isActive());
+
+            clock.advance(Duration.ofSeconds(69));
+            scheduler.advance();
+            assertTrue(sale.isActive());
+            clock.advance(Duration.ofSeconds(1));
+            scheduler.advance();
+            assertTrue(sale.isEnded());
+        }
+
+        @Test
+        @DisplayName("Should never fire before a sub-tick instant")
+        void testRoundsUp() {
+            PromotionScheduler.ScheduledPromotion sale =
+                scheduler.schedule("Mouse", 1.0, T0.plusMillis(1_500), T0.plusSeconds(5));
+
+            clock.advance(Duration.ofMillis(1_499));
+            scheduler.advance();
+            assertFalse(sale.isActive());
+            clock.advance(Duration.ofMillis(501));
+            scheduler.advance();
+            assertTrue(sale.isActive());
+        }
+
+        @Test
+        @DisplayName("Should activate immediately when the start has passed")
+        void testStartInPast() {
+            PromotionScheduler.ScheduledPromotion sale =
+                scheduler.schedule("Mouse", 1.0, T0.minusSeconds(60), T0.plusSeconds(60));
+            assertTrue(sale.isActive());
+            assertEquals(1.0, cart.getActivePromotions().get("Mouse"));
+        }
+
+        @Test
+        @DisplayName("Should catch up after a long jump in time")
+        void testLongJump() {
+            scheduler.schedule("Mouse", 1.0, T0.plusSeconds(5), T0.plusSeconds(50));
+            clock.advance(Duration.ofHours(1));
+            assertEquals(2, scheduler.advance());
+            assertTrue(cart.getActivePromotions().isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Cart Registration Tests")
+    class CartRegistrationTests {
+
+        @Test
+        @DisplayName("Should apply running promotions to carts registered later")
+        void testLateRegistration() {
+            scheduler.schedule("Mouse", 5.0, T0, T0.plusSeconds(60));
+            Cart late = new Cart();
+            late.addProduct(TestDataFactory.createMouse());
+            scheduler.register(late);
+            assertEquals(5.0, late.getDiscountAmount(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Should leave unregistered carts alone")
+        void testUnregister() {
+            scheduler.schedule("Mouse", 5.0, T0.plusSeconds(1), T0.plusSeconds(60));
+            assertTrue(scheduler.unregister(cart));
+            clock.advance(Duration.ofSeconds(1));
+            scheduler.advance();
+            assertTrue(cart.getActivePromotions().isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should not remove a manually replaced promotion on expiry")
+        void testExpiryKeepsReplacement() {
+            scheduler.schedule("Mouse", 5.0, T0, T0.plusSeconds(10));
+            cart.addPromotion("Mouse", 7.0);
+            clock.advance(Duration.ofSeconds(10));
+            scheduler.advance();
+            assertEquals(7.0, cart.getActivePromotions().get("Mouse"));
+        }
+
+        @Test
+        @DisplayName("Should remove a cancelled promotion right away")
+        void testCancel() {
+            PromotionScheduler.ScheduledPromotion sale = scheduler.schedule("Mouse", 5.0, T0, T0.plusSeconds(10));
+            assertTrue(scheduler.cancel(sale));
+            assertTrue(cart.getActivePromotions().isEmpty());
+            assertFalse(scheduler.cancel(sale));
+
+            clock.advance(Duration.ofSeconds(10));
+            assertEquals(0, scheduler.advance());
+        }
+
+        @Test
+        @DisplayName("Should reject invalid schedules")
+        void testInvalid() {
+            assertThrows(IllegalArgumentException.class, () -> scheduler.schedule("Mouse", 1.0, T0.plusSeconds(5), T0));
+            assertThrows(IllegalArgumentException.class, () -> scheduler.schedule("", 1.0, T0, T0.plusSeconds(5)));
+            assertThrows(IllegalArgumentException.class, () -> scheduler.schedule("Mouse", -1.0, T0, T0.plusSeconds(5)));
+            assertThrows(IllegalArgumentException.class,
+                () -> scheduler.schedule("Mouse", 1.0, T0.minusSeconds(10), T0.minusSeconds(5)));
+            assertThrows(IllegalArgumentException.class, () -> scheduler.register(null));
+        }
+    }
+}